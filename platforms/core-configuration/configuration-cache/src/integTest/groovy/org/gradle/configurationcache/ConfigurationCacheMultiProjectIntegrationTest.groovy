@@ -114,4 +114,151 @@ class ConfigurationCacheMultiProjectIntegrationTest extends AbstractConfiguratio
         result.assertTasksExecuted(':ok', ':a:ok', ':b:ok')
         configurationCache.assertStateLoaded()
     }
+
+    def "restores work graph with cross-project dependencies from sharded entry"() {
+        given:
+        settingsFile << """
+            include 'a', 'b', 'c'
+        """
+        buildScript """
+            allprojects {
+                task ok {
+                    def projectName = project.name
+                    doLast { println("ok from \$projectName") }
+                }
+            }
+            project(':b') { ok.dependsOn(':a:ok') }
+            project(':c') { ok.dependsOn(':b:ok'); ok.finalizedBy(':ok') }
+        """
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun ':c:ok', '-Dorg.gradle.configuration-cache.internal.sharded-work-graph=true'
+
+        then:
+        result.assertTasksExecutedInOrder(':a:ok', ':b:ok', ':c:ok', ':ok')
+        configurationCache.assertStateStored()
+
+        when:
+        configurationCacheRun ':c:ok', '-Dorg.gradle.configuration-cache.internal.sharded-work-graph=true'
+
+        then:
+        result.assertTasksExecutedInOrder(':a:ok', ':b:ok', ':c:ok', ':ok')
+        outputContains("ok from c")
+        configurationCache.assertStateLoaded()
+    }
+
+    def "restores build service and value source shared by projects from sharded entry"() {
+        given:
+        settingsFile << """
+            include 'a', 'b', 'c'
+        """
+        buildScript """
+            abstract class CountingService implements BuildService<BuildServiceParameters.None> {
+                CountingService() { println("service created") }
+            }
+            abstract class CountingSource implements ValueSource<String, ValueSourceParameters.None> {
+                String obtain() {
+                    println("value source obtained")
+                    return "value"
+                }
+            }
+            def sharedService = gradle.sharedServices.registerIfAbsent("counting", CountingService) {}
+            def sharedValue = providers.of(CountingSource) {}
+            allprojects {
+                task ok {
+                    usesService(sharedService)
+                    def projectName = project.name
+                    def service = sharedService
+                    def value = sharedValue
+                    doLast {
+                        service.get()
+                        println("ok from \$projectName with \${value.get()}")
+                    }
+                }
+            }
+        """
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun 'ok', '-Dorg.gradle.configuration-cache.internal.sharded-work-graph=true'
+
+        then:
+        configurationCache.assertStateStored()
+        output.count("service created") == 1
+        output.count("value source obtained") == 1
+
+        when:
+        configurationCacheRun 'ok', '-Dorg.gradle.configuration-cache.internal.sharded-work-graph=true'
+
+        then:
+        configurationCache.assertStateLoaded()
+        outputContains("ok from a with value")
+        outputContains("ok from c with value")
+        output.count("service created") == 1
+        output.count("value source obtained") == 1
+    }
+
+    def "restores build service used by a single project and a flow action from sharded entry"() {
+        given:
+        settingsFile << """
+            include 'a', 'b', 'c'
+        """
+        buildScript """
+            import org.gradle.api.flow.*
+
+            abstract class CountingService implements BuildService<BuildServiceParameters.None> {
+                CountingService() { println("service created") }
+                void report(String message) { println(message) }
+            }
+
+            class ReportAction implements FlowAction<Parameters> {
+                interface Parameters extends FlowParameters {
+                    @ServiceReference("counting") Property<CountingService> getService()
+                }
+                void execute(Parameters parameters) {
+                    parameters.service.get().report("reported by flow action")
+                }
+            }
+
+            abstract class FlowActionPlugin implements Plugin<Project> {
+                @Inject abstract FlowScope getFlowScope()
+                void apply(Project target) {
+                    flowScope.always(ReportAction) {}
+                }
+            }
+
+            allprojects {
+                task ok {
+                    def projectName = project.name
+                    doLast { println("ok from \$projectName") }
+                }
+            }
+            project(':b') {
+                def service = gradle.sharedServices.registerIfAbsent("counting", CountingService) {}
+                ok.usesService(service)
+                ok.doLast { service.get().report("reported by :b:ok") }
+            }
+            apply type: FlowActionPlugin
+        """
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun 'ok', '-Dorg.gradle.configuration-cache.internal.sharded-work-graph=true'
+
+        then:
+        configurationCache.assertStateStored()
+        output.count("service created") == 1
+
+        when:
+        configurationCacheRun 'ok', '-Dorg.gradle.configuration-cache.internal.sharded-work-graph=true'
+
+        then:
+        configurationCache.assertStateLoaded()
+        outputContains("ok from a")
+        outputContains("ok from c")
+        outputContains("reported by :b:ok")
+        outputContains("reported by flow action")
+        output.count("service created") == 1
+    }
 }
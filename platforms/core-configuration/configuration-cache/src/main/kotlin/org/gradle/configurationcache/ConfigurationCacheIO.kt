@@ -27,10 +27,17 @@ import org.gradle.configurationcache.problems.ConfigurationCacheProblems
 import org.gradle.configurationcache.serialization.DefaultReadContext
 import org.gradle.configurationcache.serialization.DefaultWriteContext
 import org.gradle.configurationcache.serialization.LoggingTracer
+import org.gradle.configurationcache.serialization.ProjectProvider
+import org.gradle.configurationcache.serialization.ReadContext
+import org.gradle.configurationcache.serialization.ReadIdentities
 import org.gradle.configurationcache.serialization.Tracer
+import org.gradle.configurationcache.serialization.WriteContext
+import org.gradle.configurationcache.serialization.WriteIdentities
 import org.gradle.configurationcache.serialization.beans.BeanStateReaderLookup
 import org.gradle.configurationcache.serialization.beans.BeanStateWriterLookup
 import org.gradle.configurationcache.serialization.codecs.Codecs
+import org.gradle.configurationcache.serialization.codecs.EncodedWorkGraphShard
+import org.gradle.configurationcache.serialization.codecs.WorkGraphShards
 import org.gradle.configurationcache.serialization.readCollection
 import org.gradle.configurationcache.serialization.readFile
 import org.gradle.configurationcache.serialization.readList
@@ -42,6 +49,7 @@ import org.gradle.configurationcache.serialization.writeCollection
 import org.gradle.configurationcache.serialization.writeFile
 import org.gradle.internal.build.BuildStateRegistry
 import org.gradle.internal.buildtree.BuildTreeWorkGraph
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter
 import org.gradle.internal.serialize.Decoder
@@ -50,10 +58,17 @@ import org.gradle.internal.serialize.kryo.KryoBackedDecoder
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder
 import org.gradle.internal.service.scopes.Scopes
 import org.gradle.internal.service.scopes.ServiceScope
+import org.gradle.internal.work.WorkerLeaseService
 import org.gradle.util.Path
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
 import java.io.File
 import java.io.InputStream
 import java.io.OutputStream
+import java.util.IdentityHashMap
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Future
 
 
 @ServiceScope(Scopes.Gradle::class)
@@ -206,6 +221,189 @@ class ConfigurationCacheIO internal constructor(
         }
     }
 
+    /**
+     * Returns the [WorkGraphShards] used to store the work graph, or `null` when the work graph
+     * should be stored as a single stream.
+     */
+    internal
+    fun workGraphShardsForStore(): WorkGraphShards? =
+        if (startParameter.isShardedWorkGraph) ConcurrentWorkGraphShards(null)
+        else null
+
+    internal
+    fun workGraphShardsForLoad(projectProvider: ProjectProvider): WorkGraphShards =
+        ConcurrentWorkGraphShards(projectProvider)
+
+    private
+    inner class ConcurrentWorkGraphShards(
+        private val projectProvider: ProjectProvider?
+    ) : WorkGraphShards {
+
+        override fun <T> writeShards(
+            parent: WriteContext,
+            shards: List<Pair<String?, T>>,
+            writeOperation: suspend WriteContext.(T) -> Unit
+        ): List<EncodedWorkGraphShard> {
+            val parentContext = parent as DefaultWriteContext
+            val identities = listOf(parentContext.sharedIdentities, parentContext.isolate.identities)
+            val writtenShards = shards.map { (projectPath, shard) ->
+                val firstIds = identities.map { it.nextId }
+                val outputStream = ByteArrayOutputStream()
+                identities.forEach { it.startRecordingLookups() }
+                val lookups = try {
+                    writeContextFor(KryoBackedEncoder(outputStream), null, codecs, parentContext.sharedIdentities).useToRun {
+                        pushIsolateOf(parentContext)
+                        runWriteOperation {
+                            writeOperation(shard)
+                        }
+                    }
+                    identities.map { it.stopRecordingLookups() }
+                } catch (e: Throwable) {
+                    identities.forEach { it.stopRecordingLookups() }
+                    throw e
+                }
+                WrittenWorkGraphShard(projectPath, outputStream.toByteArray(), firstIds, identities.map { it.nextId }, lookups)
+            }
+            val dependencies = BooleanArray(writtenShards.size)
+            writtenShards.forEachIndexed { index, shard ->
+                shard.lookups.forEachIndexed { table, ids ->
+                    ids.forEach { id ->
+                        if (!shard.owns(table, id)) {
+                            // Both this shard and the shard introducing the instance, if any, need the shared identities
+                            dependencies[index] = true
+                            writtenShards.indexOfOwner(table, id)?.let { owner ->
+                                dependencies[owner] = true
+                            }
+                        }
+                    }
+                }
+            }
+            return writtenShards.mapIndexed { index, shard ->
+                EncodedWorkGraphShard(shard.projectPath?.takeIf { !dependencies[index] }, shard.bytes)
+            }
+        }
+
+        /**
+         * Finds the shard that introduced the instance with the given id, if any.
+         *
+         * The shards introduce consecutive ranges of ids, so the owner is the last shard starting at or before the id.
+         */
+        private
+        fun List<WrittenWorkGraphShard>.indexOfOwner(table: Int, id: Int): Int? {
+            var low = 0
+            var high = size
+            while (low < high) {
+                val mid = (low + high) ushr 1
+                if (this[mid].firstIds[table] <= id) low = mid + 1 else high = mid
+            }
+            return (low - 1).takeIf { it >= 0 && this[it].owns(table, id) }
+        }
+
+        override fun <T> readShards(parent: ReadContext, shards: List<EncodedWorkGraphShard>, readOperation: suspend ReadContext.() -> T): List<T> {
+            val parentContext = parent as DefaultReadContext
+            val isolatedShards = shards.filter { it.projectPath != null }
+            if (isolatedShards.size < 2) {
+                return shards.map { shard -> readSharedShard(parentContext, shard, readOperation) }
+            }
+            // Shards sharing identities are decoded first and in order, as the instances they share are introduced by earlier shards
+            val sharedResults = IdentityHashMap<EncodedWorkGraphShard, T>()
+            shards.forEach { shard ->
+                if (shard.projectPath == null) {
+                    sharedResults[shard] = readSharedShard(parentContext, shard, readOperation)
+                }
+            }
+            val executor = service<ExecutorFactory>().create("Configuration cache work graph loader", minOf(isolatedShards.size, Runtime.getRuntime().availableProcessors()))
+            val isolatedResults = IdentityHashMap<EncodedWorkGraphShard, Future<IsolatedShardResult<T>>>()
+            try {
+                isolatedShards.forEach { shard ->
+                    isolatedResults[shard] = executor.submit(Callable { readIsolatedShard(parentContext, shard, readOperation) })
+                }
+            } finally {
+                // Let the loader threads acquire the project locks held by this thread
+                service<WorkerLeaseService>().blocking {
+                    executor.stop()
+                }
+            }
+            return shards.map { shard ->
+                val result = isolatedResults[shard]
+                if (result == null) {
+                    sharedResults.getValue(shard)
+                } else {
+                    val isolatedResult = try {
+                        result.get()
+                    } catch (e: ExecutionException) {
+                        throw e.cause ?: e
+                    }
+                    // The state written after the work graph may refer to the instances introduced by the shard
+                    parentContext.sharedIdentities.putAll(isolatedResult.sharedIdentities)
+                    parentContext.isolate.identities.putAll(isolatedResult.isolateIdentities)
+                    isolatedResult.value
+                }
+            }
+        }
+
+        /**
+         * Decodes a shard that doesn't use any shared identities through a context of its own, while holding the lock of its project.
+         *
+         * The instances introduced by the shard are returned along with its value, to be registered with the identities of [parent].
+         */
+        private
+        fun <T> readIsolatedShard(parent: DefaultReadContext, shard: EncodedWorkGraphShard, readOperation: suspend ReadContext.() -> T): IsolatedShardResult<T> {
+            val projectProvider = requireNotNull(projectProvider)
+            return projectProvider(shard.projectPath!!).owner.fromMutableState {
+                val context = readContextFor(KryoBackedDecoder(ByteArrayInputStream(shard.bytes)), codecs)
+                context.use {
+                    context.initClassLoader(parent.classLoader)
+                    context.initProjectProvider(projectProvider)
+                    context.pushIsolateLike(parent)
+                    val value = context.runReadOperation {
+                        readOperation()
+                    }
+                    context.finish()
+                    IsolatedShardResult(value, context.sharedIdentities, context.isolate.identities)
+                }
+            }
+        }
+
+        /**
+         * Decodes a shard on the calling thread through a context sharing the identities of [parent], like the rest of the work graph.
+         */
+        private
+        fun <T> readSharedShard(parent: DefaultReadContext, shard: EncodedWorkGraphShard, readOperation: suspend ReadContext.() -> T): T {
+            val context = readContextFor(KryoBackedDecoder(ByteArrayInputStream(shard.bytes)), codecs, parent.sharedIdentities)
+            return context.use {
+                context.initClassLoader(parent.classLoader)
+                projectProvider?.let(context::initProjectProvider)
+                context.pushIsolateOf(parent)
+                context.runReadOperation {
+                    readOperation()
+                }.also {
+                    // Shared objects may only be complete once the enclosing context has been read
+                    parent.onFinish(context::finish)
+                }
+            }
+        }
+    }
+
+    private
+    class IsolatedShardResult<T>(
+        val value: T,
+        val sharedIdentities: ReadIdentities,
+        val isolateIdentities: ReadIdentities
+    )
+
+    private
+    class WrittenWorkGraphShard(
+        val projectPath: String?,
+        val bytes: ByteArray,
+        val firstIds: List<Int>,
+        val nextIds: List<Int>,
+        val lookups: List<Set<Int>>
+    ) {
+        fun owns(table: Int, id: Int) =
+            id >= firstIds[table] && id < nextIds[table]
+    }
+
     internal
     fun writeModelTo(model: Any, stateFile: ConfigurationCacheStateFile) {
         writeConfigurationCacheState(stateFile) {
@@ -293,7 +491,8 @@ class ConfigurationCacheIO internal constructor(
     fun writeContextFor(
         encoder: Encoder,
         tracer: Tracer?,
-        codecs: Codecs
+        codecs: Codecs,
+        sharedIdentities: WriteIdentities = WriteIdentities()
     ) = DefaultWriteContext(
         codecs.userTypesCodec(),
         encoder,
@@ -301,19 +500,22 @@ class ConfigurationCacheIO internal constructor(
         beanStateWriterLookup,
         logger,
         tracer,
-        problems
+        problems,
+        sharedIdentities
     )
 
     private
     fun readContextFor(
         decoder: Decoder,
-        codecs: Codecs
+        codecs: Codecs,
+        sharedIdentities: ReadIdentities = ReadIdentities()
     ) = DefaultReadContext(
         codecs.userTypesCodec(),
         decoder,
         beanStateReaderLookup,
         logger,
-        problems
+        problems,
+        sharedIdentities
     )
 
     private
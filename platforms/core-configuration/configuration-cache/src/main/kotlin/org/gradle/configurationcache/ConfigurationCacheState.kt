@@ -41,6 +41,7 @@ import org.gradle.configurationcache.serialization.IsolateOwner
 import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.configurationcache.serialization.WriteContext
 import org.gradle.configurationcache.serialization.codecs.Codecs
+import org.gradle.configurationcache.serialization.codecs.WorkGraphShards
 import org.gradle.configurationcache.serialization.logNotImplemented
 import org.gradle.configurationcache.serialization.readCollection
 import org.gradle.configurationcache.serialization.readEnum
@@ -458,7 +459,7 @@ class ConfigurationCacheState(
             applyProjectStates(projects, gradle)
             readRequiredBuildServicesOf(gradle)
 
-            val workGraph = readWorkGraph(gradle)
+            val workGraph = readWorkGraph(gradle, build)
             readFlowScopeOf(gradle)
             readBuildOutputCleanupRegistrations(gradle)
             return BuildWithWork(build.state.identityPath, build, gradle.rootProject.name, projects, workGraph)
@@ -469,16 +470,19 @@ class ConfigurationCacheState(
 
     private
     suspend fun DefaultWriteContext.writeWorkGraphOf(gradle: GradleInternal, scheduledWork: ScheduledWork) {
-        workNodeCodec(gradle).run {
+        val shards = gradle.serviceOf<ConfigurationCacheIO>().workGraphShardsForStore()
+        workNodeCodec(gradle, shards).run {
             writeWork(scheduledWork)
         }
     }
 
     private
-    suspend fun DefaultReadContext.readWorkGraph(gradle: GradleInternal) =
-        workNodeCodec(gradle).run {
+    suspend fun DefaultReadContext.readWorkGraph(gradle: GradleInternal, build: ConfigurationCacheBuild): ScheduledWork {
+        val shards = gradle.serviceOf<ConfigurationCacheIO>().workGraphShardsForLoad(build::getProject)
+        return workNodeCodec(gradle, shards).run {
             readWork()
         }
+    }
 
     private
     suspend fun WriteContext.writeFlowScopeOf(gradle: GradleInternal) {
@@ -500,8 +504,8 @@ class ConfigurationCacheState(
         gradle.serviceOf<FlowScope>().uncheckedCast<BuildFlowScope>()
 
     private
-    fun workNodeCodec(gradle: GradleInternal) =
-        codecs.workNodeCodecFor(gradle)
+    fun workNodeCodec(gradle: GradleInternal, shards: WorkGraphShards?) =
+        codecs.workNodeCodecFor(gradle, shards)
 
     private
     suspend fun DefaultWriteContext.writeRequiredBuildServicesOf(build: BuildState, buildTreeState: StoredBuildTreeState) {
@@ -46,6 +46,12 @@ class ConfigurationCacheStartParameter(
 
     val taskExecutionAccessPreStable: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.task-execution-access-pre-stable")
 
+    /**
+     * Whether the work graph should be stored as independently encoded per-project shards,
+     * which are decoded concurrently when the entry is loaded.
+     */
+    val isShardedWorkGraph: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.sharded-work-graph", false)
+
     val encryptionRequested: Boolean = options.getInternalFlag("org.gradle.configuration-cache.internal.encryption", true)
 
     val keystoreDir: String? = options.getInternalString("org.gradle.configuration-cache.internal.key-store-dir", null)
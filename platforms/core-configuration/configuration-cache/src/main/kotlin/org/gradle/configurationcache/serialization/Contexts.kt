@@ -55,11 +55,11 @@ class DefaultWriteContext(
 
     override val tracer: Tracer?,
 
-    problemsListener: ProblemsListener
+    problemsListener: ProblemsListener,
 
-) : AbstractIsolateContext<WriteIsolate>(codec, problemsListener), WriteContext, Encoder by encoder, AutoCloseable {
+    override val sharedIdentities: WriteIdentities = WriteIdentities()
 
-    override val sharedIdentities = WriteIdentities()
+) : AbstractIsolateContext<WriteIsolate>(codec, problemsListener), WriteContext, Encoder by encoder, AutoCloseable {
 
     override val circularReferences = CircularReferences()
 
@@ -217,11 +217,11 @@ class DefaultReadContext(
 
     override val logger: Logger,
 
-    problemsListener: ProblemsListener
+    problemsListener: ProblemsListener,
 
-) : AbstractIsolateContext<ReadIsolate>(codec, problemsListener), ReadContext, Decoder by decoder, AutoCloseable {
+    override val sharedIdentities: ReadIdentities = ReadIdentities()
 
-    override val sharedIdentities = ReadIdentities()
+) : AbstractIsolateContext<ReadIsolate>(codec, problemsListener), ReadContext, Decoder by decoder, AutoCloseable {
 
     private
     val classes = ReadIdentities()
@@ -404,6 +404,22 @@ abstract class AbstractIsolateContext<T>(
         currentCodec = codec
     }
 
+    /**
+     * Enters the current isolate of [other] with its current codec, so that both contexts share the identities of the isolate.
+     */
+    fun pushIsolateOf(other: AbstractIsolateContext<T>) {
+        contexts.add(0, Pair(currentIsolate, currentCodec))
+        currentIsolate = other.getIsolate()
+        currentCodec = other.currentCodec
+    }
+
+    /**
+     * Enters a new isolate with the owner and the codec of the current isolate of [other].
+     */
+    fun pushIsolateLike(other: AbstractIsolateContext<T>) {
+        push((other.getIsolate() as Isolate).owner, other.currentCodec)
+    }
+
     override fun pop() {
         val previousValues = contexts.removeAt(0)
         currentIsolate = previousValues.first
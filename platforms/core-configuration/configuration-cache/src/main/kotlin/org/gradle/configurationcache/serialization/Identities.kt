@@ -25,7 +25,31 @@ class WriteIdentities {
     private
     val instanceIds = IdentityHashMap<Any, Int>()
 
-    fun getId(instance: Any) = instanceIds[instance]
+    private
+    var lookups: MutableSet<Int>? = null
+
+    /**
+     * The id the next instance will be given.
+     */
+    val nextId: Int
+        get() = instanceIds.size
+
+    fun getId(instance: Any) = instanceIds[instance]?.also {
+        lookups?.add(it)
+    }
+
+    /**
+     * Starts recording the ids of the instances looked up, used to find out which encodings depend on each other.
+     */
+    fun startRecordingLookups() {
+        require(lookups == null)
+        lookups = HashSet()
+    }
+
+    fun stopRecordingLookups(): Set<Int> =
+        lookups!!.also {
+            lookups = null
+        }
 
     fun putInstance(instance: Any): Int {
         val id = instanceIds.size
@@ -45,6 +69,13 @@ class ReadIdentities {
     fun putInstance(id: Int, instance: Any) {
         instanceIds[id] = instance
     }
+
+    /**
+     * Registers the instances read through [other], which were given ids from the same sequence as this one's.
+     */
+    fun putAll(other: ReadIdentities) {
+        instanceIds.putAll(other.instanceIds)
+    }
 }
 
 
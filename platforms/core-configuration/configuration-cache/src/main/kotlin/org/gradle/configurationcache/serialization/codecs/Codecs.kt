@@ -395,6 +395,6 @@ class Codecs(
         bind(BuildIdentifierSerializer())
     }
 
-    fun workNodeCodecFor(gradle: GradleInternal) =
-        WorkNodeCodec(gradle, internalTypesCodec(), ordinalGroupFactory)
+    fun workNodeCodecFor(gradle: GradleInternal, shards: WorkGraphShards? = null) =
+        WorkNodeCodec(gradle, internalTypesCodec(), ordinalGroupFactory, shards)
 }
@@ -19,15 +19,18 @@ package org.gradle.configurationcache.serialization.codecs
 import com.google.common.collect.ImmutableSet
 import org.gradle.api.internal.GradleInternal
 import org.gradle.api.internal.artifacts.transform.DefaultTransformUpstreamDependenciesResolver
+import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.tasks.NodeExecutionContext
 import org.gradle.configurationcache.serialization.Codec
 import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.configurationcache.serialization.WriteContext
 import org.gradle.configurationcache.serialization.decodePreservingIdentity
+import org.gradle.configurationcache.extensions.uncheckedCast
 import org.gradle.configurationcache.serialization.encodePreservingIdentityOf
 import org.gradle.configurationcache.serialization.ownerService
 import org.gradle.configurationcache.serialization.readCollection
 import org.gradle.configurationcache.serialization.readCollectionInto
+import org.gradle.configurationcache.serialization.readList
 import org.gradle.configurationcache.serialization.readNonNull
 import org.gradle.configurationcache.serialization.withGradleIsolate
 import org.gradle.configurationcache.serialization.writeCollection
@@ -47,7 +50,8 @@ internal
 class WorkNodeCodec(
     private val owner: GradleInternal,
     private val internalTypesCodec: Codec<Any?>,
-    private val ordinalGroups: OrdinalGroupFactory
+    private val ordinalGroups: OrdinalGroupFactory,
+    private val shards: WorkGraphShards? = null
 ) {
 
     suspend fun WriteContext.writeWork(work: ScheduledWork) {
@@ -67,6 +71,15 @@ class WorkNodeCodec(
         val nodes = work.scheduledNodes
         val nodeCount = nodes.size
         writeSmallInt(nodeCount)
+        if (shards == null) {
+            writeBoolean(false)
+            nodes.forEach { node ->
+                write(node)
+            }
+        } else {
+            writeBoolean(true)
+            writeShardedNodes(nodes, shards)
+        }
         val scheduledNodeIds = HashMap<Node, Int>(nodeCount)
         // Not all entry nodes are always scheduled.
         // In particular, it happens when the entry node is a task of the included plugin build that runs as part of building the plugin.
@@ -74,7 +87,6 @@ class WorkNodeCodec(
         // Not restoring them as entry points doesn't affect the resulting execution plan.
         val scheduledEntryNodeIds = mutableListOf<Int>()
         nodes.forEach { node ->
-            write(node)
             val nodeId = scheduledNodeIds.size
             scheduledNodeIds[node] = nodeId
             if (node in work.entryNodes) {
@@ -95,19 +107,55 @@ class WorkNodeCodec(
         }
     }
 
+    /**
+     * Partitions the [nodes] by owning project and encodes each partition as a shard.
+     *
+     * The shard index of every node is recorded in scheduling order so the reader can restore the original
+     * node order, and with it the node ids used by the successor and group references written afterwards.
+     * Nodes not owned by a project of this build all go to a single shard, which is never isolated.
+     */
+    private
+    fun WriteContext.writeShardedNodes(nodes: List<Node>, shards: WorkGraphShards) {
+        val shardIndexByProject = LinkedHashMap<ProjectInternal?, Int>()
+        val nodesByShard = ArrayList<Pair<ProjectInternal?, MutableList<Node>>>()
+        nodes.forEach { node ->
+            val project = node.owningProject?.takeIf { it.gradle === owner }
+            val shardIndex = shardIndexByProject.getOrPut(project) {
+                nodesByShard.add(project to mutableListOf())
+                nodesByShard.size - 1
+            }
+            nodesByShard[shardIndex].second.add(node)
+            writeSmallInt(shardIndex)
+        }
+        val encodedShards = shards.writeShards(this, nodesByShard.map { (project, shardNodes) -> project?.path to shardNodes }) { shardNodes ->
+            writeCollection(shardNodes)
+        }
+        writeCollection(encodedShards) { shard ->
+            writeNullableString(shard.projectPath)
+            writeBinary(shard.bytes)
+        }
+    }
+
     private
     suspend fun ReadContext.doRead(): ScheduledWork {
         val nodeCount = readSmallInt()
-        val nodes = ArrayList<Node>(nodeCount)
+        val nodes = if (readBoolean()) {
+            readShardedNodes(nodeCount)
+        } else {
+            ArrayList<Node>(nodeCount).apply {
+                for (i in 0 until nodeCount) {
+                    add(readNonNull())
+                }
+            }
+        }
         val nodesById = HashMap<Int, Node>(nodeCount)
-        for (i in 0 until nodeCount) {
-            val node = readNode()
+        nodes.forEach { node ->
+            requireNode(node)
             nodesById[nodesById.size] = node
             if (node is LocalTaskNode) {
                 node.prepareNode.require()
                 nodesById[nodesById.size] = node.prepareNode
             }
-            nodes.add(node)
         }
         // Note that using the ImmutableSet retains the original ordering of entry nodes.
         val entryNodes = ImmutableSet.builder<Node>()
@@ -122,11 +170,28 @@ class WorkNodeCodec(
     }
 
     private
-    suspend fun ReadContext.readNode(): Node {
-        val node = readNonNull<Node>()
+    fun ReadContext.readShardedNodes(nodeCount: Int): List<Node> {
+        require(shards != null) {
+            "The work graph was stored in shards but no shard reader is available."
+        }
+        val shardIndices = IntArray(nodeCount) { readSmallInt() }
+        val encodedShards = mutableListOf<EncodedWorkGraphShard>()
+        readCollection {
+            encodedShards.add(EncodedWorkGraphShard(readNullableString(), readBinary()))
+        }
+        val decodedShards = shards.readShards(this, encodedShards) {
+            readList().uncheckedCast<List<Node>>()
+        }
+        val shardIterators = decodedShards.map { it.iterator() }
+        return shardIndices.map { shardIndex ->
+            shardIterators[shardIndex].next()
+        }
+    }
+
+    private
+    fun requireNode(node: Node) {
         node.require()
         node.dependenciesProcessed()
-        return node
     }
 
     private
@@ -270,3 +335,33 @@ class WorkNodeCodec(
         }
     }
 }
+
+
+/**
+ * Encodes and decodes shards of the work graph.
+ *
+ * Each shard is written through its own context, which shares the identities of the enclosing context.
+ * A shard of a single project whose instances are neither shared with the enclosing context nor with the other
+ * shards is isolated and can be decoded independently. References between nodes of different shards
+ * are resolved by [WorkNodeCodec] once all shards have been decoded.
+ */
+internal
+interface WorkGraphShards {
+
+    /**
+     * Encodes the given shards, each optionally owned by the project with the given path, through children of [parent].
+     */
+    fun <T> writeShards(parent: WriteContext, shards: List<Pair<String?, T>>, writeOperation: suspend WriteContext.(T) -> Unit): List<EncodedWorkGraphShard>
+
+    fun <T> readShards(parent: ReadContext, shards: List<EncodedWorkGraphShard>, readOperation: suspend ReadContext.() -> T): List<T>
+}
+
+
+internal
+class EncodedWorkGraphShard(
+    /**
+     * The path of the project owning all nodes of the shard, when the shard is isolated.
+     */
+    val projectPath: String?,
+    val bytes: ByteArray
+)
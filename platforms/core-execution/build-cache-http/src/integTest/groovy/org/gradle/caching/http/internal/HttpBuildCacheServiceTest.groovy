@@ -16,6 +16,7 @@
 
 package org.gradle.caching.http.internal
 
+import com.google.common.util.concurrent.MoreExecutors
 import org.apache.http.HttpHeaders
 import org.apache.http.HttpStatus
 import org.gradle.api.UncheckedIOException
@@ -25,9 +26,14 @@ import org.gradle.caching.BuildCacheException
 import org.gradle.caching.BuildCacheServiceFactory
 import org.gradle.caching.http.HttpBuildCache
 import org.gradle.caching.internal.DefaultBuildCacheKey
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ExecutorPolicy
+import org.gradle.internal.concurrent.ManagedExecutorImpl
 import org.gradle.internal.hash.HashCode
+import org.gradle.internal.resource.transport.http.DefaultHttpSettings
 import org.gradle.internal.resource.transport.http.DefaultSslContextFactory
 import org.gradle.internal.resource.transport.http.HttpClientHelper
+import org.gradle.internal.verifier.HttpRedirectVerifierFactory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.test.fixtures.server.http.AuthScheme
 import org.gradle.test.fixtures.server.http.HttpResourceInteraction
@@ -67,7 +73,7 @@ class HttpBuildCacheServiceTest extends Specification {
     HttpBuildCacheService getCache() {
         if (cacheRef == null) {
             buildCacheDescriber = new NoopBuildCacheDescriber()
-            cacheRef = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory(), { it.addHeader("X-Gradle-Version", "3.0") }, httpClientHelperFactory)
+            cacheRef = new DefaultHttpBuildCacheServiceFactory(new DefaultSslContextFactory(), { it.addHeader("X-Gradle-Version", "3.0") }, httpClientHelperFactory, new DefaultExecutorFactory())
                 .createBuildCacheService(this.config, buildCacheDescriber) as HttpBuildCacheService
         }
         cacheRef
@@ -160,6 +166,58 @@ class HttpBuildCacheServiceTest extends Specification {
         !fromCache
     }
 
+    def "loads prefetched artifact without another request"() {
+        def srcFile = tempDir.file("cached.zip")
+        srcFile.text = "Data"
+        server.expectGet("/cache/${key.hashCode}", srcFile)
+        def cache = prefetchingCache()
+
+        when:
+        cache.prefetch([key])
+        def receivedInput = null
+        def fromCache = cache.load(key) { input ->
+            receivedInput = input.text
+        }
+
+        then:
+        fromCache
+        receivedInput == "Data"
+    }
+
+    def "requests released prefetched artifact again when loading it"() {
+        def srcFile = tempDir.file("cached.zip")
+        srcFile.text = "Data"
+        server.expectGet("/cache/${key.hashCode}", srcFile)
+        server.expectGet("/cache/${key.hashCode}", srcFile)
+        def cache = prefetchingCache()
+
+        when:
+        cache.prefetch([key])
+        cache.release([key])
+        def receivedInput = null
+        def fromCache = cache.load(key) { input ->
+            receivedInput = input.text
+        }
+
+        then:
+        fromCache
+        receivedInput == "Data"
+    }
+
+    def "reports prefetched cache miss without another request"() {
+        server.expectGetMissing("/cache/${key.hashCode}")
+        def cache = prefetchingCache()
+
+        when:
+        cache.prefetch([key])
+        def fromCache = cache.load(key) { input ->
+            throw new RuntimeException("That should never be called")
+        }
+
+        then:
+        !fromCache
+    }
+
     def "load reports recoverable error on http code #httpCode"(int httpCode) {
         expectError(httpCode, 'GET')
 
@@ -356,6 +414,16 @@ class HttpBuildCacheServiceTest extends Specification {
 
     }
 
+    private HttpBuildCacheService prefetchingCache() {
+        def settings = DefaultHttpSettings.builder()
+            .withAuthenticationSettings([])
+            .withSslContextFactory(new DefaultSslContextFactory())
+            .withRedirectVerifier(HttpRedirectVerifierFactory.create(config.url, true, {}, {}))
+            .build()
+        // Runs the prefetch requests inline, so that they are complete before the loads
+        new HttpBuildCacheService(httpClientHelperFactory.create(settings), config.url, {}, false, new ManagedExecutorImpl(MoreExecutors.newDirectExecutorService(), new ExecutorPolicy.CatchAndRecordFailures()))
+    }
+
     static class Writer implements BuildCacheEntryWriter {
         private final byte[] content
         private int writeCount = 0
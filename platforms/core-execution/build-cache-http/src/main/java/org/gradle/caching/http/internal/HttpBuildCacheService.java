@@ -17,6 +17,7 @@
 package org.gradle.caching.http.internal;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
@@ -31,24 +32,37 @@
 import org.gradle.caching.BuildCacheEntryWriter;
 import org.gradle.caching.BuildCacheException;
 import org.gradle.caching.BuildCacheKey;
-import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.PrefetchingBuildCacheService;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
 import org.gradle.internal.resource.transport.http.HttpClientResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collection;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Build cache implementation that delegates to a service accessible via HTTP.
+ *
+ * <p>When created with a prefetch executor, the entries passed to {@link #prefetch(Collection)} are requested concurrently over the pooled connections.
+ * Misses and small entries are kept until they are loaded or released, so that the load does not need another round trip.</p>
  */
-public class HttpBuildCacheService implements BuildCacheService {
+public class HttpBuildCacheService implements PrefetchingBuildCacheService {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpBuildCacheService.class);
     static final String BUILD_CACHE_CONTENT_TYPE = "application/vnd.gradle.build-cache-artifact.v1";
 
@@ -63,24 +77,78 @@ public class HttpBuildCacheService implements BuildCacheService {
         511 // network authentication required
     );
 
+    private static final int MAX_PREFETCHED_ENTRY_SIZE = 1024 * 1024;
+    private static final long MAX_PREFETCHED_BYTES = 64L * 1024 * 1024;
+
     private final URI root;
     private final HttpClientHelper httpClientHelper;
     private final HttpBuildCacheRequestCustomizer requestCustomizer;
     private final boolean useExpectContinue;
+    @Nullable
+    private final ManagedExecutor prefetchExecutor;
+    private final ConcurrentMap<String, PrefetchedEntry> prefetchedEntries = new ConcurrentHashMap<>();
+    private final AtomicLong prefetchedBytes = new AtomicLong();
 
     public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url, HttpBuildCacheRequestCustomizer requestCustomizer, boolean useExpectContinue) {
+        this(httpClientHelper, url, requestCustomizer, useExpectContinue, null);
+    }
+
+    public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url, HttpBuildCacheRequestCustomizer requestCustomizer, boolean useExpectContinue, @Nullable ManagedExecutor prefetchExecutor) {
         this.requestCustomizer = requestCustomizer;
         this.useExpectContinue = useExpectContinue;
         this.root = withTrailingSlash(url);
         this.httpClientHelper = httpClientHelper;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    @Override
+    public void prefetch(Collection<BuildCacheKey> keys) {
+        if (prefetchExecutor == null) {
+            return;
+        }
+        for (BuildCacheKey key : keys) {
+            PrefetchedEntry entry = new PrefetchedEntry();
+            if (prefetchedEntries.putIfAbsent(key.getHashCode(), entry) == null) {
+                try {
+                    prefetchExecutor.execute(() -> entry.fetch(key));
+                } catch (RejectedExecutionException e) {
+                    prefetchedEntries.remove(key.getHashCode(), entry);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void release(Collection<BuildCacheKey> keys) {
+        for (BuildCacheKey key : keys) {
+            PrefetchedEntry entry = prefetchedEntries.remove(key.getHashCode());
+            if (entry != null) {
+                entry.release();
+            }
+        }
     }
 
     @Override
     public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
-        final URI uri = root.resolve("./" + key.getHashCode());
-        HttpGet httpGet = new HttpGet(uri);
-        httpGet.addHeader(HttpHeaders.ACCEPT, BUILD_CACHE_CONTENT_TYPE + ", */*");
-        requestCustomizer.customize(httpGet);
+        PrefetchedEntry prefetchedEntry = prefetchedEntries.remove(key.getHashCode());
+        if (prefetchedEntry != null) {
+            PrefetchResult prefetched = prefetchedEntry.await();
+            if (prefetched == PrefetchResult.MISS) {
+                return false;
+            }
+            if (prefetched != null) {
+                releaseBytes(prefetched);
+                try {
+                    reader.readFrom(new ByteArrayInputStream(prefetched.content));
+                    return true;
+                } catch (IOException e) {
+                    throw wrap(e);
+                }
+            }
+        }
+
+        final URI uri = entryUri(key);
+        HttpGet httpGet = newGet(uri);
 
         try (HttpClientResponse response = httpClientHelper.performHttpRequest(httpGet)) {
             StatusLine statusLine = response.getStatusLine();
@@ -102,6 +170,54 @@ public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws Buil
         }
     }
 
+    /**
+     * Requests the given entry, returning {@code null} when the entry is not kept and needs to be requested again by the load.
+     */
+    @Nullable
+    private PrefetchResult doPrefetch(BuildCacheKey key) throws IOException {
+        URI uri = entryUri(key);
+        try (HttpClientResponse response = httpClientHelper.performHttpRequest(newGet(uri))) {
+            StatusLine statusLine = response.getStatusLine();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Response for prefetching GET {}: {}", safeUri(uri), statusLine);
+            }
+            int statusCode = statusLine.getStatusCode();
+            if (statusCode == HttpStatus.SC_NOT_FOUND) {
+                return PrefetchResult.MISS;
+            }
+            if (!isHttpSuccess(statusCode)) {
+                // Let the load report the failure
+                return null;
+            }
+            byte[] content = ByteStreams.toByteArray(ByteStreams.limit(response.getContent(), MAX_PREFETCHED_ENTRY_SIZE + 1));
+            if (content.length > MAX_PREFETCHED_ENTRY_SIZE) {
+                return null;
+            }
+            if (prefetchedBytes.addAndGet(content.length) > MAX_PREFETCHED_BYTES) {
+                prefetchedBytes.addAndGet(-content.length);
+                return null;
+            }
+            return new PrefetchResult(content);
+        }
+    }
+
+    private void releaseBytes(@Nullable PrefetchResult prefetched) {
+        if (prefetched != null && prefetched != PrefetchResult.MISS) {
+            prefetchedBytes.addAndGet(-prefetched.content.length);
+        }
+    }
+
+    private URI entryUri(BuildCacheKey key) {
+        return root.resolve("./" + key.getHashCode());
+    }
+
+    private HttpGet newGet(URI uri) {
+        HttpGet httpGet = new HttpGet(uri);
+        httpGet.addHeader(HttpHeaders.ACCEPT, BUILD_CACHE_CONTENT_TYPE + ", */*");
+        requestCustomizer.customize(httpGet);
+        return httpGet;
+    }
+
     @Override
     public void store(BuildCacheKey key, BuildCacheEntryWriter writer) throws BuildCacheException {
         final URI uri = root.resolve(key.getHashCode());
@@ -177,6 +293,12 @@ private boolean throwHttpStatusCodeException(int statusCode, String message) {
 
     @Override
     public void close() throws IOException {
+        if (prefetchExecutor != null) {
+            // Skip the requests that have not started yet and wait for the others, as they use the client
+            prefetchedEntries.values().forEach(PrefetchedEntry::release);
+            prefetchExecutor.stop();
+        }
+        prefetchedEntries.clear();
         httpClientHelper.close();
     }
 
@@ -210,4 +332,55 @@ private static URI withTrailingSlash(URI uri) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
     }
+
+    private static class PrefetchResult {
+        static final PrefetchResult MISS = new PrefetchResult(new byte[0]);
+
+        final byte[] content;
+
+        PrefetchResult(byte[] content) {
+            this.content = content;
+        }
+    }
+
+    private class PrefetchedEntry {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final CompletableFuture<PrefetchResult> result = new CompletableFuture<>();
+
+        void fetch(BuildCacheKey key) {
+            if (!claimed.compareAndSet(false, true)) {
+                // The entry is already being loaded
+                return;
+            }
+            PrefetchResult fetched = null;
+            try {
+                fetched = doPrefetch(key);
+            } catch (Exception e) {
+                LOGGER.debug("Could not prefetch entry {}", key.getHashCode(), e);
+            } finally {
+                result.complete(fetched);
+            }
+        }
+
+        /**
+         * Waits for the request for this entry to complete, or returns {@code null} straight away when it has not started yet.
+         */
+        @Nullable
+        PrefetchResult await() {
+            if (claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            return result.join();
+        }
+
+        /**
+         * Skips the request for this entry when it has not started yet, otherwise gives back the memory taken up by the response once it completes.
+         */
+        void release() {
+            if (claimed.compareAndSet(false, true)) {
+                return;
+            }
+            result.thenAccept(HttpBuildCacheService.this::releaseBytes);
+        }
+    }
 }
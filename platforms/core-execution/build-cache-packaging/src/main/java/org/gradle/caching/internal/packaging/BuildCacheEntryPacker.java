@@ -23,12 +23,23 @@
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
 
 public interface BuildCacheEntryPacker {
+    /**
+     * Identifies the format of the packed entries when it is not the default GZIP compressed tar format.
+     *
+     * Entries in a different format are stored under different cache keys, so that clients which only know the default format never load them.
+     */
+    @Nullable
+    default String getEntryFormat() {
+        return null;
+    }
+
     PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException;
 
     class PackResult {
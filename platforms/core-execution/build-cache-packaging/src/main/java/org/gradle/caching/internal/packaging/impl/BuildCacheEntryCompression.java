@@ -0,0 +1,56 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Recognizes the compression of a build cache entry from the magic number it starts with,
+ * so that entries can be unpacked regardless of which of the supported compressions they were packed with.
+ */
+final class BuildCacheEntryCompression {
+    private static final byte[] LZ4_FRAME_MAGIC = {0x04, 0x22, 0x4D, 0x18};
+
+    private BuildCacheEntryCompression() {
+    }
+
+    /**
+     * Returns a stream decompressing the given entry, which is either compressed with GZIP or in the LZ4 frame format.
+     */
+    static InputStream decompress(InputStream input) throws IOException {
+        PushbackInputStream pushbackInput = new PushbackInputStream(input, LZ4_FRAME_MAGIC.length);
+        byte[] header = new byte[LZ4_FRAME_MAGIC.length];
+        int read = 0;
+        while (read < header.length) {
+            int count = pushbackInput.read(header, read, header.length - read);
+            if (count < 0) {
+                break;
+            }
+            read += count;
+        }
+        pushbackInput.unread(header, 0, read);
+        if (FramedLZ4CompressorInputStream.matches(header, read)) {
+            return new FramedLZ4CompressorInputStream(pushbackInput);
+        }
+        return new GZIPInputStream(pushbackInput);
+    }
+}
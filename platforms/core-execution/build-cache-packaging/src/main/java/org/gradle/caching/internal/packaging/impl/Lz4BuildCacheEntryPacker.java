@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginReader;
+import org.gradle.caching.internal.origin.OriginWriter;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Compresses build cache entries in the LZ4 frame format.
+ *
+ * Entries are recognized by their magic number when unpacking, so entries packed by {@link GZipBuildCacheEntryPacker} can still be loaded.
+ * The entries are stored under different cache keys than GZIP compressed ones, as other clients of a shared cache may not be able to read them.
+ */
+public class Lz4BuildCacheEntryPacker implements BuildCacheEntryPacker {
+    private static final FramedLZ4CompressorOutputStream.Parameters PARAMETERS = new FramedLZ4CompressorOutputStream.Parameters(
+        FramedLZ4CompressorOutputStream.BlockSize.M4,
+        true,
+        false,
+        false,
+        BlockLZ4CompressorOutputStream.createParameterBuilder().tunedForSpeed().build()
+    );
+
+    private final BuildCacheEntryPacker delegate;
+
+    public Lz4BuildCacheEntryPacker(BuildCacheEntryPacker delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String getEntryFormat() {
+        return "tar.lz4";
+    }
+
+    @Override
+    public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
+        try (FramedLZ4CompressorOutputStream lz4Output = new FramedLZ4CompressorOutputStream(output, PARAMETERS)) {
+            return delegate.pack(entity, snapshots, lz4Output, writeOrigin);
+        }
+    }
+
+    @Override
+    public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+        try (InputStream decompressedInput = BuildCacheEntryCompression.decompress(input)) {
+            return delegate.unpack(entity, decompressedInput, readOrigin);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.caching.internal.CacheableEntity
+import org.gradle.caching.internal.origin.OriginReader
+import org.gradle.caching.internal.origin.OriginWriter
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
+import org.gradle.internal.snapshot.FileSystemSnapshot
+import spock.lang.Specification
+
+class Lz4BuildCacheEntryPackerTest extends Specification {
+    def entity = Stub(CacheableEntity)
+    def delegate = new TextPacker()
+
+    def "entries packed with #packedWith can be unpacked with #unpackedWith"() {
+        def output = new ByteArrayOutputStream()
+
+        when:
+        packer(packedWith).pack(entity, [:], output, Stub(OriginWriter))
+        packer(unpackedWith).unpack(entity, new ByteArrayInputStream(output.toByteArray()), Stub(OriginReader))
+
+        then:
+        delegate.unpacked == TextPacker.CONTENT
+
+        where:
+        packedWith | unpackedWith
+        "gzip"     | "gzip"
+        "gzip"     | "lz4"
+        "lz4"      | "lz4"
+        "lz4"      | "gzip"
+    }
+
+    def "lz4 entries have a different entry format than gzip entries"() {
+        expect:
+        packer("gzip").entryFormat == null
+        packer("lz4").entryFormat == "tar.lz4"
+    }
+
+    private BuildCacheEntryPacker packer(String compression) {
+        compression == "lz4"
+            ? new Lz4BuildCacheEntryPacker(delegate)
+            : new GZipBuildCacheEntryPacker(delegate)
+    }
+
+    private static class TextPacker implements BuildCacheEntryPacker {
+        static final String CONTENT = "Some cached content " * 100
+        String unpacked
+
+        @Override
+        PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) {
+            output.write(CONTENT.bytes)
+            return new PackResult(1)
+        }
+
+        @Override
+        UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) {
+            unpacked = input.text
+            return new UnpackResult(null, 1, [:])
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.BuildCacheService;
+
+import java.util.Collection;
+
+/**
+ * A build cache service that can start fetching entries ahead of the calls to {@link #load(BuildCacheKey, org.gradle.caching.BuildCacheEntryReader)} which consume them.
+ */
+public interface PrefetchingBuildCacheService extends BuildCacheService {
+
+    /**
+     * Hints that the entries with the given keys are likely to be loaded soon.
+     *
+     * The implementation may start looking up the entries in the background, so that a later load of the same key does not need another round trip.
+     * It must not fail the build when the lookup fails, the failure is reported by the load instead.
+     */
+    void prefetch(Collection<BuildCacheKey> keys);
+
+    /**
+     * Drops whatever was prefetched for the given keys and has not been loaded, as the entries are not going to be loaded anymore.
+     */
+    void release(Collection<BuildCacheKey> keys);
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.file.temp.TemporaryFileProvider;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationRef;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.util.internal.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Stores entries in the remote build cache on a background thread, so that slow uploads do not hold up the worker that produced the entry.
+ *
+ * <p>At most {@code maxPendingStores} entries are queued or being uploaded at a time, storing more blocks the caller until an upload completes.
+ * Failures are handled by the remote handle in the same way as for synchronous stores. Closing waits for the pending stores to complete.</p>
+ *
+ * <p>The work that produced an entry has usually completed by the time the entry is uploaded, so the store operations run as children of a
+ * background operation instead. It is started with the first store and finished when closing, once all stores have completed.</p>
+ */
+class AsyncRemoteStore implements Closeable {
+
+    private final RemoteBuildCacheServiceHandle remote;
+    private final TemporaryFileProvider temporaryFileProvider;
+    private final ManagedExecutor executor;
+    private final Semaphore pendingStores;
+    private final BuildOperationExecutor buildOperationExecutor;
+
+    @Nullable
+    private BuildOperationContext backgroundOperationContext;
+    @Nullable
+    private BuildOperationRef backgroundOperation;
+
+    AsyncRemoteStore(RemoteBuildCacheServiceHandle remote, TemporaryFileProvider temporaryFileProvider, ManagedExecutor executor, int maxPendingStores, BuildOperationExecutor buildOperationExecutor) {
+        this.remote = remote;
+        this.temporaryFileProvider = temporaryFileProvider;
+        this.executor = executor;
+        this.pendingStores = new Semaphore(maxPendingStores);
+        this.buildOperationExecutor = buildOperationExecutor;
+    }
+
+    /**
+     * Schedules the given file to be stored. The file is copied, so the caller remains free to move or delete it afterwards.
+     */
+    void store(BuildCacheKey key, File file) {
+        pendingStores.acquireUninterruptibly();
+        File uploadFile;
+        try {
+            uploadFile = copyForUpload(key, file);
+        } catch (RuntimeException e) {
+            pendingStores.release();
+            throw e;
+        }
+        BuildOperationRef parentOperation = startBackgroundOperation();
+        executor.execute(() -> {
+            try {
+                CurrentBuildOperationRef.instance().with(parentOperation, () -> {
+                    remote.maybeStore(key, uploadFile);
+                });
+            } finally {
+                GFileUtils.deleteQuietly(uploadFile);
+                pendingStores.release();
+            }
+        });
+    }
+
+    @Nullable
+    private synchronized BuildOperationRef startBackgroundOperation() {
+        if (backgroundOperationContext == null) {
+            // Started outside the current operation, as it outlives the work storing the first entry
+            CurrentBuildOperationRef.instance().with(null, () -> {
+                backgroundOperationContext = buildOperationExecutor.start(BuildOperationDescriptor.displayName("Store entries in the remote build cache"));
+                backgroundOperation = CurrentBuildOperationRef.instance().get();
+            });
+        }
+        return backgroundOperation;
+    }
+
+    private synchronized void finishBackgroundOperation() {
+        BuildOperationContext context = backgroundOperationContext;
+        if (context != null) {
+            backgroundOperationContext = null;
+            CurrentBuildOperationRef.instance().with(backgroundOperation, () -> context.setResult(null));
+        }
+    }
+
+    private File copyForUpload(BuildCacheKey key, File file) {
+        File uploadFile = temporaryFileProvider.createTemporaryFile(key.getHashCode() + "-", "-upload");
+        try {
+            // A hard link is enough as the original file is only ever moved or deleted, fall back to a copy across file systems
+            Files.delete(uploadFile.toPath());
+            try {
+                Files.createLink(uploadFile.toPath(), file.toPath());
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(file.toPath(), uploadFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return uploadFile;
+        } catch (IOException e) {
+            GFileUtils.deleteQuietly(uploadFile);
+            throw new UncheckedIOException("Could not prepare entry " + key.getDisplayName() + " for upload to the remote build cache", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            executor.stop();
+        } finally {
+            finishBackgroundOperation();
+        }
+    }
+}
@@ -23,6 +23,7 @@
 
 import java.io.Closeable;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 
@@ -37,5 +38,15 @@ public interface BuildCacheController extends Closeable {
 
     Optional<BuildCacheLoadResult> load(BuildCacheKey cacheKey, CacheableEntity cacheableEntity);
 
+    /**
+     * Hints that the entries with the given keys are likely to be loaded soon, so that the remote cache can start looking them up while other work is done.
+     */
+    void prefetch(Collection<BuildCacheKey> cacheKeys);
+
+    /**
+     * Releases what was prefetched for the entries with the given keys and has not been loaded, once the work using the entries has finished.
+     */
+    void releasePrefetched(Collection<BuildCacheKey> cacheKeys);
+
     void store(BuildCacheKey cacheKey, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime);
 }
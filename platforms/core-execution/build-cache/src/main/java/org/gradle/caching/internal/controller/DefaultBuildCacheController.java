@@ -46,6 +46,7 @@
 import org.gradle.caching.local.internal.BuildCacheTempFileStore;
 import org.gradle.caching.local.internal.DefaultBuildCacheTempFileStore;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.file.FileMetadata;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.file.TreeType;
@@ -66,12 +67,15 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class DefaultBuildCacheController implements BuildCacheController {
 
+    private static final int MAX_PENDING_REMOTE_STORES = 16;
+
     @VisibleForTesting
     final RemoteBuildCacheServiceHandle remote;
 
@@ -81,6 +85,8 @@ public class DefaultBuildCacheController implements BuildCacheController {
     private final BuildCacheTempFileStore tmp;
     private final boolean emitDebugLogging;
     private final PackOperationExecutor packExecutor;
+    @Nullable
+    private final AsyncRemoteStore asyncRemoteStore;
 
     private boolean closed;
 
@@ -95,6 +101,25 @@ public DefaultBuildCacheController(
         BuildCacheEntryPacker packer,
         OriginMetadataFactory originMetadataFactory,
         StringInterner stringInterner
+    ) {
+        this(config, buildOperationExecutor, buildOperationProgressEventEmitter, temporaryFileProvider, logStackTraces, emitDebugLogging, disableRemoteOnError, packer, originMetadataFactory, stringInterner, null);
+    }
+
+    /**
+     * Creates a controller that stores entries in the remote cache using the given executor when one is provided, instead of on the calling thread.
+     */
+    public DefaultBuildCacheController(
+        BuildCacheServicesConfiguration config,
+        BuildOperationExecutor buildOperationExecutor,
+        BuildOperationProgressEventEmitter buildOperationProgressEventEmitter,
+        TemporaryFileProvider temporaryFileProvider,
+        boolean logStackTraces,
+        boolean emitDebugLogging,
+        boolean disableRemoteOnError,
+        BuildCacheEntryPacker packer,
+        OriginMetadataFactory originMetadataFactory,
+        StringInterner stringInterner,
+        @Nullable ManagedExecutor remoteStoreExecutor
     ) {
         this.emitDebugLogging = emitDebugLogging;
         this.local = toLocalHandle(config.getLocal(), config.isLocalPush(), buildOperationExecutor);
@@ -106,6 +131,9 @@ public DefaultBuildCacheController(
             originMetadataFactory,
             stringInterner
         );
+        this.asyncRemoteStore = remoteStoreExecutor == null
+            ? null
+            : new AsyncRemoteStore(remote, temporaryFileProvider, remoteStoreExecutor, MAX_PENDING_REMOTE_STORES, buildOperationExecutor);
     }
 
     @Override
@@ -155,6 +183,16 @@ private Optional<BuildCacheLoadResult> loadRemoteAndStoreResultLocally(BuildCach
         return result.get();
     }
 
+    @Override
+    public void prefetch(Collection<BuildCacheKey> keys) {
+        remote.maybePrefetch(keys);
+    }
+
+    @Override
+    public void releasePrefetched(Collection<BuildCacheKey> keys) {
+        remote.maybeReleasePrefetched(keys);
+    }
+
     @Override
     public void store(BuildCacheKey key, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime) {
         if (!local.canStore() && !remote.canStore()) {
@@ -162,7 +200,11 @@ public void store(BuildCacheKey key, CacheableEntity entity, Map<String, FileSys
         }
         tmp.withTempFile(((DefaultBuildCacheKey) key).getHashCodeInternal(), file -> {
             packExecutor.pack(file, key, entity, snapshots, executionTime);
-            remote.maybeStore(key, file);
+            if (asyncRemoteStore != null && remote.canStore()) {
+                asyncRemoteStore.store(key, file);
+            } else {
+                remote.maybeStore(key, file);
+            }
             local.maybeStore(key, file);
         });
     }
@@ -174,6 +216,10 @@ public void close() throws IOException {
             Closer closer = Closer.create();
             closer.register(local);
             closer.register(remote);
+            if (asyncRemoteStore != null) {
+                // Closed first, so that the pending stores complete before the remote is closed
+                closer.register(asyncRemoteStore);
+            }
             closer.close();
         }
     }
@@ -19,11 +19,13 @@
 import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.PrefetchingBuildCacheService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.Collection;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.function.Function;
@@ -62,7 +64,7 @@ public String describeFailure(BuildCacheKey key, BuildCacheServiceRole role) {
     private final boolean logStackTraces;
     private final boolean disableOnError;
 
-    private boolean disabled;
+    private volatile boolean disabled;
 
     public BaseRemoteBuildCacheServiceHandle(
         BuildCacheService service,
@@ -120,6 +122,30 @@ private Optional<BuildCacheLoadResult> maybeUnpack(LoadTarget loadTarget, Functi
         return Optional.empty();
     }
 
+    @Override
+    public void maybePrefetch(Collection<BuildCacheKey> keys) {
+        if (!canLoad() || !(service instanceof PrefetchingBuildCacheService)) {
+            return;
+        }
+        try {
+            ((PrefetchingBuildCacheService) service).prefetch(keys);
+        } catch (Exception e) {
+            LOGGER.debug("Could not prefetch entries from {} build cache", role.getDisplayName(), e);
+        }
+    }
+
+    @Override
+    public void maybeReleasePrefetched(Collection<BuildCacheKey> keys) {
+        if (!(service instanceof PrefetchingBuildCacheService)) {
+            return;
+        }
+        try {
+            ((PrefetchingBuildCacheService) service).release(keys);
+        } catch (Exception e) {
+            LOGGER.debug("Could not release prefetched entries of {} build cache", role.getDisplayName(), e);
+        }
+    }
+
     @Override
     public boolean canStore() {
         return pushEnabled && !disabled;
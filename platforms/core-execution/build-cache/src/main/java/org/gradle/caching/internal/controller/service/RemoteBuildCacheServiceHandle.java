@@ -23,6 +23,7 @@
 import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.File;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -41,6 +42,20 @@ public interface RemoteBuildCacheServiceHandle extends Closeable {
      */
     Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, File toFile, Function<File, BuildCacheLoadResult> unpackFunction);
 
+    /**
+     * Hints that the entries for the given cache keys are likely to be loaded soon.
+     *
+     * If canLoad() returns false, or the service does not support prefetching, then this method will do nothing.
+     */
+    void maybePrefetch(Collection<BuildCacheKey> keys);
+
+    /**
+     * Releases what was prefetched for the given cache keys and has not been loaded.
+     *
+     * If the service does not support prefetching, then this method will do nothing.
+     */
+    void maybeReleasePrefetched(Collection<BuildCacheKey> keys);
+
     boolean canStore();
 
     /**
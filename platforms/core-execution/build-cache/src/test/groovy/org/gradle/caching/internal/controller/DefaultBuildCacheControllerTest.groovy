@@ -25,12 +25,17 @@ import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.BuildCacheService
 import org.gradle.caching.internal.CacheableEntity
 import org.gradle.caching.internal.DefaultBuildCacheKey
+import org.gradle.caching.internal.PrefetchingBuildCacheService
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration
 import org.gradle.caching.internal.origin.OriginMetadataFactory
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
 import org.gradle.caching.local.internal.LocalBuildCacheService
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.operations.BuildOperationRef
+import org.gradle.internal.operations.CurrentBuildOperationRef
 import org.gradle.internal.operations.NoOpBuildOperationProgressEventEmitter
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.snapshot.FileSystemSnapshot
@@ -73,7 +78,7 @@ class DefaultBuildCacheControllerTest extends Specification {
 
     interface Local extends BuildCacheService, LocalBuildCacheService {}
 
-    BuildCacheController getController(boolean disableRemoteOnError = true) {
+    BuildCacheController getController(boolean disableRemoteOnError = true, ManagedExecutor remoteStoreExecutor = null) {
         new DefaultBuildCacheController(
             new BuildCacheServicesConfiguration(
                 Path.ROOT.path,
@@ -90,7 +95,8 @@ class DefaultBuildCacheControllerTest extends Specification {
             disableRemoteOnError,
             packer,
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            remoteStoreExecutor
         )
     }
 
@@ -120,6 +126,49 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * local.storeLocally(key, _)
     }
 
+    def "stores to remote in the background when given an executor"() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def controller = getController(true, executorFactory.create("remote store", 1))
+        Thread storeThread = null
+
+        when:
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        controller.close()
+
+        then:
+        1 * remote.store(key, _) >> { storeThread = Thread.currentThread() }
+        1 * local.storeLocally(key, _)
+        storeThread != null
+        storeThread != Thread.currentThread()
+
+        cleanup:
+        executorFactory.stop()
+    }
+
+    def "stores to remote in the background as part of a background build operation"() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        def controller = getController(true, executorFactory.create("remote store", 1))
+        def currentOperation = Stub(BuildOperationRef)
+        BuildOperationRef storeOperation = null
+
+        when:
+        CurrentBuildOperationRef.instance().set(currentOperation)
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        CurrentBuildOperationRef.instance().clear()
+        controller.close()
+
+        then:
+        1 * remote.store(key, _) >> { storeOperation = CurrentBuildOperationRef.instance().get() }
+        storeOperation != currentOperation
+        operations.log.descriptors*.displayName.contains("Store entries in the remote build cache")
+
+        cleanup:
+        CurrentBuildOperationRef.instance().clear()
+        executorFactory.stop()
+    }
+
     def "does not store to local if local push is disabled"() {
         given:
         localPush = false
@@ -172,6 +221,31 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * local.storeLocally(key, _)
     }
 
+    def "prefetches from remote if supported"() {
+        given:
+        remote = Mock(PrefetchingBuildCacheService)
+
+        when:
+        controller.prefetch([key])
+
+        then:
+        1 * remote.prefetch([key])
+    }
+
+    def "does not prefetch from remote after read error"() {
+        given:
+        remote = Mock(PrefetchingBuildCacheService)
+        def controller = getController()
+
+        when:
+        controller.load(key, cacheableEntity)
+        controller.prefetch([key])
+
+        then:
+        1 * remote.load(key, _) >> { throw new RuntimeException() }
+        0 * remote.prefetch(_)
+    }
+
     def "remote load does not store to local if local is disabled"() {
         given:
         local = null
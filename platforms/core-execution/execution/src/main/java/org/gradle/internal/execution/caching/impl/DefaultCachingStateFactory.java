@@ -26,11 +26,23 @@
 import org.gradle.internal.hash.Hashing;
 import org.slf4j.Logger;
 
+import javax.annotation.Nullable;
+
 public class DefaultCachingStateFactory implements CachingStateFactory {
     private final Logger logger;
+    @Nullable
+    private final String entryFormat;
 
     public DefaultCachingStateFactory(Logger logger) {
+        this(logger, null);
+    }
+
+    /**
+     * @param entryFormat the format of the build cache entries when it is not the default one, which is then part of the cache key
+     */
+    public DefaultCachingStateFactory(Logger logger, @Nullable String entryFormat) {
         this.logger = logger;
+        this.entryFormat = entryFormat;
     }
 
     @Override
@@ -70,6 +82,11 @@ public final CachingState createCachingState(BeforeExecutionState beforeExecutio
             cacheKeyHasher.putString(propertyName);
         });
 
+        if (entryFormat != null) {
+            logger.warn("Appending entry format to build cache key: {}", entryFormat);
+            cacheKeyHasher.putString(entryFormat);
+        }
+
         if (cachingDisabledReasons.isEmpty()) {
             return CachingState.enabled(new DefaultBuildCacheKey(cacheKeyHasher.hash()), beforeExecutionState);
         } else {
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Records how long units of work took to execute in previous builds.
+ */
+public interface ExecutionDurationStore {
+    /**
+     * Returns the expected execution duration of the work with the given key, based on its previous executions.
+     */
+    Optional<Duration> load(String key);
+
+    void store(String key, Duration duration);
+}
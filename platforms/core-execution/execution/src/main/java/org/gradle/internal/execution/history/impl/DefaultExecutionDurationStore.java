@@ -0,0 +1,57 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
+import org.gradle.internal.execution.history.ExecutionDurationStore;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Keeps an exponentially weighted moving average of the execution durations, so that a single outlier does not dominate the estimate.
+ */
+public class DefaultExecutionDurationStore implements ExecutionDurationStore {
+
+    private final IndexedCache<String, Long> store;
+
+    public DefaultExecutionDurationStore(
+        Supplier<PersistentCache> cache,
+        InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory
+    ) {
+        this.store = cache.get().createIndexedCache(
+            IndexedCacheParameters.of("executionDurations", String.class, Long.class)
+                .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(10000, false))
+        );
+    }
+
+    @Override
+    public Optional<Duration> load(String key) {
+        return Optional.ofNullable(store.getIfPresent(key)).map(Duration::ofMillis);
+    }
+
+    @Override
+    public void store(String key, Duration duration) {
+        long durationMillis = duration.toMillis();
+        Long previousMillis = store.getIfPresent(key);
+        store.put(key, previousMillis == null ? durationMillis : (previousMillis + durationMillis) / 2);
+    }
+}
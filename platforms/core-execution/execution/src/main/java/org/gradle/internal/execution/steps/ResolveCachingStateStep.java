@@ -27,10 +27,13 @@
 import org.gradle.internal.execution.caching.impl.DefaultCachingStateFactory;
 import org.gradle.internal.execution.history.BeforeExecutionState;
 import org.gradle.internal.execution.history.OverlappingOutputs;
+import org.gradle.internal.execution.history.PreviousExecutionState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.helpers.NOPLogger;
 
+import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.Formatter;
 import java.util.List;
 
@@ -43,15 +46,27 @@
 
     private final BuildCacheController buildCache;
     private final boolean buildScansEnabled;
+    @Nullable
+    private final String entryFormat;
     private final Step<? super CachingContext, ? extends UpToDateResult> delegate;
 
     public ResolveCachingStateStep(
         BuildCacheController buildCache,
         boolean buildScansEnabled,
         Step<? super CachingContext, ? extends UpToDateResult> delegate
+    ) {
+        this(buildCache, buildScansEnabled, null, delegate);
+    }
+
+    public ResolveCachingStateStep(
+        BuildCacheController buildCache,
+        boolean buildScansEnabled,
+        @Nullable String entryFormat,
+        Step<? super CachingContext, ? extends UpToDateResult> delegate
     ) {
         this.buildCache = buildCache;
         this.buildScansEnabled = buildScansEnabled;
+        this.entryFormat = entryFormat;
         this.delegate = delegate;
     }
 
@@ -73,15 +88,40 @@ public CachingResult execute(UnitOfWork work, C context) {
             disabled -> logDisabledReasons(disabled.getDisabledReasons(), work)
         );
 
-        UpToDateResult result = delegate.execute(work, new CachingContext(context, cachingState));
-        return new CachingResult(result, cachingState);
+        List<BuildCacheKey> prefetchedKeys = cachingState.whenEnabled()
+            .filter(enabled -> shouldPrefetch(work, context))
+            .map(enabled -> Collections.singletonList(enabled.getKey()))
+            .orElse(Collections.emptyList());
+        if (!prefetchedKeys.isEmpty()) {
+            // Let the remote cache start looking up the entry while the remaining steps prepare the execution
+            buildCache.prefetch(prefetchedKeys);
+        }
+        try {
+            UpToDateResult result = delegate.execute(work, new CachingContext(context, cachingState));
+            return new CachingResult(result, cachingState);
+        } finally {
+            if (!prefetchedKeys.isEmpty()) {
+                // The remote entry is not loaded when it is found in the local cache, or when the work fails before loading it
+                buildCache.releasePrefetched(prefetchedKeys);
+            }
+        }
+    }
+
+    /**
+     * Only prefetches entries of work that can load from the cache and has no successful previous execution, as that work cannot be up-to-date.
+     */
+    private boolean shouldPrefetch(UnitOfWork work, C context) {
+        boolean mayBeUpToDate = context.getPreviousExecutionState()
+            .filter(PreviousExecutionState::isSuccessful)
+            .isPresent();
+        return buildCache.isEnabled() && work.isAllowedToLoadFromCache() && !mayBeUpToDate;
     }
 
     private CachingState calculateCachingState(UnitOfWork work, BeforeExecutionState beforeExecutionState) {
         Logger logger = buildCache.isEmitDebugLogging()
             ? LOGGER
             : NOPLogger.NOP_LOGGER;
-        CachingStateFactory cachingStateFactory = new DefaultCachingStateFactory(logger);
+        CachingStateFactory cachingStateFactory = new DefaultCachingStateFactory(logger, entryFormat);
 
         ImmutableList.Builder<CachingDisabledReason> cachingDisabledReasonsBuilder = ImmutableList.builder();
         if (!buildCache.isEnabled()) {
@@ -17,10 +17,16 @@
 package org.gradle.internal.execution.steps
 
 import com.google.common.collect.ImmutableList
+import com.google.common.collect.ImmutableSortedMap
 import org.gradle.api.problems.internal.Problem
 import org.gradle.caching.internal.controller.BuildCacheController
+import org.gradle.internal.execution.UnitOfWork
 import org.gradle.internal.execution.caching.CachingDisabledReason
 import org.gradle.internal.execution.caching.CachingDisabledReasonCategory
+import org.gradle.internal.execution.history.BeforeExecutionState
+import org.gradle.internal.execution.history.PreviousExecutionState
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.impl.ImplementationSnapshot
 
 import java.time.Duration
 
@@ -74,4 +80,98 @@ class ResolveCachingStateStepTest extends StepSpec<ValidationFinishedContext> {
             context.cachingState.whenDisabled().map { it.disabledReasons }.get() as List == [disabledReason]
         }) >> delegateResult
     }
+
+    def "prefetches cache entry when caching is enabled"() {
+        when:
+        step.execute(work, context)
+        then:
+        _ * buildCache.enabled >> true
+        _ * context.beforeExecutionState >> Optional.of(beforeExecutionState())
+        _ * context.validationProblems >> ImmutableList.of()
+        _ * work.shouldDisableCaching(null) >> Optional.empty()
+        _ * work.allowedToLoadFromCache >> true
+        1 * buildCache.prefetch({ it.size() == 1 })
+        1 * delegate.execute(work, { CachingContext context ->
+            context.cachingState.whenEnabled().present
+        }) >> delegateResult
+
+        then:
+        1 * buildCache.releasePrefetched({ it.size() == 1 })
+    }
+
+    def "does not prefetch cache entry when work may be up-to-date"() {
+        when:
+        step.execute(work, context)
+        then:
+        _ * buildCache.enabled >> true
+        _ * context.beforeExecutionState >> Optional.of(beforeExecutionState())
+        _ * context.previousExecutionState >> Optional.of(Stub(PreviousExecutionState) {
+            successful >> true
+        })
+        _ * context.validationProblems >> ImmutableList.of()
+        _ * work.shouldDisableCaching(null) >> Optional.empty()
+        _ * work.allowedToLoadFromCache >> true
+        0 * buildCache.prefetch(_)
+        1 * delegate.execute(work, _ as CachingContext) >> delegateResult
+        0 * buildCache.releasePrefetched(_)
+    }
+
+    def "releases prefetched cache entry when work fails"() {
+        when:
+        step.execute(work, context)
+        then:
+        _ * buildCache.enabled >> true
+        _ * context.beforeExecutionState >> Optional.of(beforeExecutionState())
+        _ * context.validationProblems >> ImmutableList.of()
+        _ * work.shouldDisableCaching(null) >> Optional.empty()
+        _ * work.allowedToLoadFromCache >> true
+        1 * buildCache.prefetch({ it.size() == 1 })
+        1 * delegate.execute(work, _ as CachingContext) >> { throw new RuntimeException("failure") }
+        1 * buildCache.releasePrefetched({ it.size() == 1 })
+        thrown(RuntimeException)
+    }
+
+    def "does not prefetch cache entry when work is not allowed to load from cache"() {
+        when:
+        step.execute(work, context)
+        then:
+        _ * buildCache.enabled >> true
+        _ * context.beforeExecutionState >> Optional.of(beforeExecutionState())
+        _ * context.validationProblems >> ImmutableList.of()
+        _ * work.shouldDisableCaching(null) >> Optional.empty()
+        _ * work.allowedToLoadFromCache >> false
+        0 * buildCache.prefetch(_)
+        1 * delegate.execute(work, _ as CachingContext) >> delegateResult
+    }
+
+    def "entry format is part of the cache key"() {
+        def keys = []
+        def lz4Step = new ResolveCachingStateStep(buildCache, true, "tar.lz4", delegate)
+
+        when:
+        step.execute(work, context)
+        lz4Step.execute(work, context)
+        then:
+        _ * buildCache.enabled >> true
+        _ * context.beforeExecutionState >> Optional.of(beforeExecutionState())
+        _ * context.validationProblems >> ImmutableList.of()
+        _ * work.shouldDisableCaching(null) >> Optional.empty()
+        2 * delegate.execute(work, _ as CachingContext) >> { UnitOfWork unitOfWork, CachingContext cachingContext ->
+            keys << cachingContext.cachingState.whenEnabled().get().key
+            delegateResult
+        }
+        keys.size() == 2
+        keys[0] != keys[1]
+    }
+
+    private BeforeExecutionState beforeExecutionState() {
+        Stub(BeforeExecutionState) {
+            implementation >> ImplementationSnapshot.of("MyWorkClass", TestHashCodes.hashCodeFrom(1234))
+            additionalImplementations >> ImmutableList.of()
+            inputProperties >> ImmutableSortedMap.of()
+            inputFileProperties >> ImmutableSortedMap.of()
+            outputFileLocationSnapshots >> ImmutableSortedMap.of()
+            detectedOverlappingOutputs >> Optional.empty()
+        }
+    }
 }
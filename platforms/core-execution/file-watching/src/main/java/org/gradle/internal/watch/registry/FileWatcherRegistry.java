@@ -105,5 +105,9 @@ interface FileWatchingStatistics {
         boolean isUnknownEventEncountered();
         int getNumberOfReceivedEvents();
         int getNumberOfWatchedHierarchies();
+
+        int getWatchBudget();
+
+        int getNumberOfEvictedSnapshots();
     }
 }
@@ -71,6 +71,11 @@
  * </dl>
  */
 public interface FileWatcherUpdater {
+    /**
+     * The watch budget of updaters which can watch as many directories as needed.
+     */
+    int UNLIMITED_WATCHES = Integer.MAX_VALUE;
+
     /**
      * Registers a watchable hierarchy.
      *
@@ -112,4 +117,14 @@ public interface FileWatcherUpdater {
      * @see FileWatcherUpdater
      */
     FileHierarchySet getWatchedFiles();
+
+    /**
+     * The maximum number of directories to watch, or {@link #UNLIMITED_WATCHES}.
+     */
+    int getWatchBudget();
+
+    /**
+     * The number of snapshots removed from the VFS to stay within the watch budget since the last call.
+     */
+    int getAndResetNumberOfEvictedSnapshots();
 }
@@ -114,6 +114,16 @@ public FileHierarchySet getWatchedFiles() {
         return watchedFiles;
     }
 
+    @Override
+    public int getWatchBudget() {
+        return UNLIMITED_WATCHES;
+    }
+
+    @Override
+    public int getAndResetNumberOfEvictedSnapshots() {
+        return 0;
+    }
+
     @Override
     public void triggerWatchProbe(String path) {
         probeRegistry.triggerWatchProbe(path);
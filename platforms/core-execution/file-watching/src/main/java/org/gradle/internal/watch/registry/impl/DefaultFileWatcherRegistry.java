@@ -184,6 +184,8 @@ public FileWatchingStatistics getAndResetStatistics() {
         fileWatchingStatistics = new MutableFileWatchingStatistics();
         AtomicInteger numberOfWatchedHierarchies = new AtomicInteger();
         fileWatcherUpdater.getWatchedFiles().visitRoots(root -> numberOfWatchedHierarchies.incrementAndGet());
+        int watchBudget = fileWatcherUpdater.getWatchBudget();
+        int numberOfEvictedSnapshots = fileWatcherUpdater.getAndResetNumberOfEvictedSnapshots();
         return new FileWatchingStatistics() {
             @Override
             public Optional<Throwable> getErrorWhileReceivingFileChanges() {
@@ -204,6 +206,16 @@ public int getNumberOfReceivedEvents() {
             public int getNumberOfWatchedHierarchies() {
                 return numberOfWatchedHierarchies.get();
             }
+
+            @Override
+            public int getWatchBudget() {
+                return watchBudget;
+            }
+
+            @Override
+            public int getNumberOfEvictedSnapshots() {
+                return numberOfEvictedSnapshots;
+            }
         };
     }
 
@@ -25,17 +25,51 @@
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.watch.registry.FileWatcherProbeRegistry;
 import org.gradle.internal.watch.registry.FileWatcherUpdater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class LinuxFileWatcherRegistryFactory extends AbstractFileWatcherRegistryFactory<LinuxFileEventFunctions, LinuxFileWatcher> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinuxFileWatcherRegistryFactory.class);
+
+    /**
+     * The maximum number of directories a daemon watches.
+     *
+     * Defaults to 80% of {@code fs.inotify.max_user_watches}, since the limit is shared with other processes of the same user.
+     */
+    public static final String WATCH_BUDGET_PROPERTY = "org.gradle.vfs.watch.linux.budget";
+    private static final Path MAX_USER_WATCHES = Paths.get("/proc/sys/fs/inotify/max_user_watches");
+    private static final int MAX_USER_WATCHES_PERCENTAGE_IN_BUDGET = 80;
+
+    private final int watchBudget;
 
     public LinuxFileWatcherRegistryFactory(Predicate<String> immutableLocationsFilter) throws NativeIntegrationUnavailableException {
         super(FileEvents.get(LinuxFileEventFunctions.class), immutableLocationsFilter);
+        this.watchBudget = determineWatchBudget();
+    }
+
+    private static int determineWatchBudget() {
+        Integer configuredBudget = Integer.getInteger(WATCH_BUDGET_PROPERTY);
+        if (configuredBudget != null) {
+            return configuredBudget;
+        }
+        try {
+            long maxUserWatches = Long.parseLong(new String(Files.readAllBytes(MAX_USER_WATCHES), StandardCharsets.US_ASCII).trim());
+            return (int) Math.min(FileWatcherUpdater.UNLIMITED_WATCHES, maxUserWatches * MAX_USER_WATCHES_PERCENTAGE_IN_BUDGET / 100);
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.debug("Unable to read the inotify watches limit, not limiting the number of watched directories", e);
+            return FileWatcherUpdater.UNLIMITED_WATCHES;
+        }
     }
 
     @Override
@@ -46,7 +80,7 @@ protected LinuxFileWatcher createFileWatcher(BlockingQueue<FileWatchEvent> fileE
 
     @Override
     protected FileWatcherUpdater createFileWatcherUpdater(LinuxFileWatcher watcher, FileWatcherProbeRegistry probeRegistry, WatchableHierarchies watchableHierarchies) {
-        return new NonHierarchicalFileWatcherUpdater(watcher, probeRegistry, watchableHierarchies, new LinuxMovedDirectoryHandler(watcher, watchableHierarchies));
+        return new NonHierarchicalFileWatcherUpdater(watcher, probeRegistry, watchableHierarchies, new LinuxMovedDirectoryHandler(watcher, watchableHierarchies), watchBudget);
     }
 
     private static class LinuxMovedDirectoryHandler implements AbstractFileWatcherUpdater.MovedDirectoryHandler {
@@ -32,34 +32,69 @@
 import org.gradle.internal.snapshot.SnapshotVisitResult;
 import org.gradle.internal.watch.WatchingNotSupportedException;
 import org.gradle.internal.watch.registry.FileWatcherProbeRegistry;
+import org.gradle.internal.watch.registry.WatchMode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.CheckReturnValue;
 import javax.annotation.Nullable;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+/**
+ * Updates the watchers on file systems where each directory needs to be watched on its own.
+ *
+ * <p>The number of watched directories can be limited by a watch budget.
+ * Snapshots added to the VFS while the budget is exhausted are not watched, and are removed from the VFS when the build finishes.
+ * To make room for them in the next build, the coldest watched snapshots are removed as well:
+ * the ones in the hierarchies of the builds which ran least recently first, and then the ones least recently and least frequently snapshotted.
+ * Removing a snapshot removes the watches for its whole subtree.</p>
+ */
 public class NonHierarchicalFileWatcherUpdater extends AbstractFileWatcherUpdater {
     private static final Logger LOGGER = LoggerFactory.getLogger(NonHierarchicalFileWatcherUpdater.class);
 
     private final FileWatcher fileWatcher;
+    private final int watchBudget;
     private final Multiset<String> watchedDirectories = HashMultiset.create();
     private final Map<String, String> watchedDirectoryForSnapshot = new HashMap<>();
     private final Set<String> watchedWatchableHierarchies = new HashSet<>();
+    private final Map<String, SnapshotUsage> snapshotUsages = new HashMap<>();
+    /**
+     * The snapshots which are not watched because they didn't fit into the budget, with the number of watches missing for each.
+     */
+    private final Map<String, Integer> snapshotsOverBudget = new LinkedHashMap<>();
+    private int evictedSnapshots;
+    private long finishedBuilds;
 
     public NonHierarchicalFileWatcherUpdater(
         FileWatcher fileWatcher,
         FileWatcherProbeRegistry probeRegistry,
         WatchableHierarchies watchableHierarchies,
         MovedDirectoryHandler movedDirectoryHandler
+    ) {
+        this(fileWatcher, probeRegistry, watchableHierarchies, movedDirectoryHandler, UNLIMITED_WATCHES);
+    }
+
+    public NonHierarchicalFileWatcherUpdater(
+        FileWatcher fileWatcher,
+        FileWatcherProbeRegistry probeRegistry,
+        WatchableHierarchies watchableHierarchies,
+        MovedDirectoryHandler movedDirectoryHandler,
+        int watchBudget
     ) {
         super(probeRegistry, watchableHierarchies, movedDirectoryHandler);
         this.fileWatcher = fileWatcher;
+        this.watchBudget = watchBudget;
     }
 
     @Override
@@ -69,6 +104,9 @@ protected boolean handleVirtualFileSystemContentsChanged(Collection<FileSystemLo
         removedSnapshots.stream()
             .filter(watchableHierarchies::shouldWatch)
             .forEach(snapshot -> {
+                if (snapshotsOverBudget.remove(snapshot.getAbsolutePath()) != null) {
+                    return;
+                }
                 String previousWatchedRoot = watchedDirectoryForSnapshot.remove(snapshot.getAbsolutePath());
                 decrement(previousWatchedRoot, changedWatchedDirectories);
                 snapshot.accept(new SubdirectoriesToWatchVisitor(path -> decrement(path, changedWatchedDirectories)));
@@ -81,9 +119,17 @@ protected boolean handleVirtualFileSystemContentsChanged(Collection<FileSystemLo
                 if (!watchableHierarchies.isInWatchableHierarchy(pathToWatchForRoot)) {
                     return;
                 }
+                List<String> directoriesToWatch = new ArrayList<>();
+                directoriesToWatch.add(pathToWatchForRoot);
+                snapshot.accept(new SubdirectoriesToWatchVisitor(directoriesToWatch::add));
+                snapshotUsages.computeIfAbsent(snapshot.getAbsolutePath(), key -> new SnapshotUsage()).usedInBuild(finishedBuilds);
+                int missingWatches = missingWatches(directoriesToWatch, changedWatchedDirectories);
+                if (missingWatches > 0) {
+                    snapshotsOverBudget.put(snapshot.getAbsolutePath(), missingWatches);
+                    return;
+                }
                 watchedDirectoryForSnapshot.put(snapshot.getAbsolutePath(), pathToWatchForRoot);
-                increment(pathToWatchForRoot, changedWatchedDirectories);
-                snapshot.accept(new SubdirectoriesToWatchVisitor(path -> increment(path, changedWatchedDirectories)));
+                directoriesToWatch.forEach(path -> increment(path, changedWatchedDirectories));
             });
         if (changedWatchedDirectories.isEmpty()) {
             return false;
@@ -92,6 +138,113 @@ protected boolean handleVirtualFileSystemContentsChanged(Collection<FileSystemLo
         return true;
     }
 
+    /**
+     * Returns how many watches are missing in the budget to start watching the given directories, in addition to the pending changes.
+     */
+    private int missingWatches(List<String> directoriesToWatch, Map<String, Integer> changedWatchedDirectories) {
+        if (watchBudget == UNLIMITED_WATCHES) {
+            return 0;
+        }
+        int watches = watchedDirectories.elementSet().size();
+        for (Map.Entry<String, Integer> entry : changedWatchedDirectories.entrySet()) {
+            if (entry.getValue() > 0 && !watchedDirectories.contains(entry.getKey())) {
+                watches++;
+            }
+        }
+        Set<String> newWatches = new HashSet<>();
+        for (String directory : directoriesToWatch) {
+            if (!watchedDirectories.contains(directory) && !changedWatchedDirectories.containsKey(directory)) {
+                newWatches.add(directory);
+            }
+        }
+        return Math.max(0, watches + newWatches.size() - watchBudget);
+    }
+
+    @Override
+    public SnapshotHierarchy updateVfsOnBuildFinished(SnapshotHierarchy root, WatchMode watchMode, int maximumNumberOfWatchedHierarchies, List<File> unsupportedFileSystems) {
+        SnapshotHierarchy newRoot = super.updateVfsOnBuildFinished(root, watchMode, maximumNumberOfWatchedHierarchies, unsupportedFileSystems);
+        newRoot = removeSnapshotsExceedingWatchBudget(newRoot);
+        snapshotUsages.keySet().retainAll(watchedDirectoryForSnapshot.keySet());
+        finishedBuilds++;
+        return newRoot;
+    }
+
+    @CheckReturnValue
+    private SnapshotHierarchy removeSnapshotsExceedingWatchBudget(SnapshotHierarchy root) {
+        if (snapshotsOverBudget.isEmpty() && watchedDirectories.elementSet().size() <= watchBudget) {
+            return root;
+        }
+        WatchableHierarchies.Invalidator invalidator = createInvalidator();
+        SnapshotHierarchy newRoot = root;
+        int evictedBefore = evictedSnapshots;
+
+        // Nothing watched these snapshots for changes, so they can't be kept until the next build
+        int watchesMissingForSnapshotsOverBudget = 0;
+        for (Map.Entry<String, Integer> entry : new LinkedHashMap<>(snapshotsOverBudget).entrySet()) {
+            watchesMissingForSnapshotsOverBudget += entry.getValue();
+            newRoot = invalidator.invalidate(entry.getKey(), newRoot);
+            evictedSnapshots++;
+        }
+        snapshotsOverBudget.clear();
+
+        // Make room for the snapshots which didn't fit, so they can be watched in the next build.
+        // Snapshots used in the current build are only removed when the budget is exceeded.
+        int targetWatches = Math.max(0, watchBudget - watchesMissingForSnapshotsOverBudget);
+        for (String location : watchedSnapshotsFromColdest()) {
+            int watches = watchedDirectories.elementSet().size();
+            if (watches <= targetWatches) {
+                break;
+            }
+            if (!watchedDirectoryForSnapshot.containsKey(location)
+                || (watches <= watchBudget && snapshotUsages.get(location).lastUsedInBuild == finishedBuilds)) {
+                continue;
+            }
+            newRoot = invalidator.invalidate(location, newRoot);
+            evictedSnapshots++;
+        }
+        LOGGER.info("Dropped {} snapshots from the VFS to stay within the budget of {} watched directories", evictedSnapshots - evictedBefore, watchBudget);
+        return newRoot;
+    }
+
+    private List<String> watchedSnapshotsFromColdest() {
+        List<File> hierarchiesByRecency = watchableHierarchies.stream().collect(Collectors.toList());
+        Map<String, Integer> hierarchyRecency = new HashMap<>();
+        for (String location : watchedDirectoryForSnapshot.keySet()) {
+            hierarchyRecency.put(location, hierarchyRecency(location, hierarchiesByRecency));
+        }
+        Comparator<String> coldestFirst = Comparator.<String>comparingInt(hierarchyRecency::get).reversed()
+            .thenComparingLong(location -> snapshotUsages.get(location).lastUsedInBuild)
+            .thenComparingInt(location -> snapshotUsages.get(location).usedInBuilds);
+        List<String> locations = new ArrayList<>(watchedDirectoryForSnapshot.keySet());
+        locations.sort(coldestFirst);
+        return locations;
+    }
+
+    /**
+     * The position of the most recently used watchable hierarchy containing the location, or the number of hierarchies when none does.
+     */
+    private static int hierarchyRecency(String location, List<File> hierarchiesByRecency) {
+        for (int i = 0; i < hierarchiesByRecency.size(); i++) {
+            String hierarchy = hierarchiesByRecency.get(i).getAbsolutePath();
+            if (location.startsWith(hierarchy) && (location.length() == hierarchy.length() || location.charAt(hierarchy.length()) == File.separatorChar)) {
+                return i;
+            }
+        }
+        return hierarchiesByRecency.size();
+    }
+
+    @Override
+    public int getWatchBudget() {
+        return watchBudget;
+    }
+
+    @Override
+    public int getAndResetNumberOfEvictedSnapshots() {
+        int result = evictedSnapshots;
+        evictedSnapshots = 0;
+        return result;
+    }
+
     @Override
     protected void updateWatchesOnChangedWatchedFiles(FileHierarchySet newWatchedFiles) {
         // Most of the changes already happened in `handleVirtualFileSystemContentsChanged`.
@@ -183,6 +336,18 @@ private static int nullToZero(@Nullable Integer value) {
         return value == null ? 0 : value;
     }
 
+    private static class SnapshotUsage {
+        private long lastUsedInBuild = -1;
+        private int usedInBuilds;
+
+        void usedInBuild(long build) {
+            if (lastUsedInBuild != build) {
+                lastUsedInBuild = build;
+                usedInBuilds++;
+            }
+        }
+    }
+
     private class SubdirectoriesToWatchVisitor extends RootTrackingFileSystemSnapshotHierarchyVisitor {
         private final Consumer<String> subDirectoryToWatchConsumer;
 
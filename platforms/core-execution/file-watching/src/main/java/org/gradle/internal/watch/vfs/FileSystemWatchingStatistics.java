@@ -20,6 +20,16 @@ public interface FileSystemWatchingStatistics {
     int getNumberOfReceivedEvents();
     int getNumberOfWatchedHierarchies();
 
+    /**
+     * The maximum number of directories to watch, or {@link Integer#MAX_VALUE} when there is no limit.
+     */
+    int getWatchBudget();
+
+    /**
+     * The number of snapshots dropped from the virtual file system to stay within the watch budget.
+     */
+    int getNumberOfEvictedSnapshots();
+
     int getRetainedRegularFiles();
     int getRetainedDirectories();
     int getRetainedMissingFiles();
@@ -47,6 +47,16 @@ public int getNumberOfWatchedHierarchies() {
         return fileWatchingStatistics.getNumberOfWatchedHierarchies();
     }
 
+    @Override
+    public int getWatchBudget() {
+        return fileWatchingStatistics.getWatchBudget();
+    }
+
+    @Override
+    public int getNumberOfEvictedSnapshots() {
+        return fileWatchingStatistics.getNumberOfEvictedSnapshots();
+    }
+
     @Override
     public int getRetainedRegularFiles() {
         return vfsStatistics.getRetained(FileType.RegularFile);
@@ -0,0 +1,343 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * An on-disk image of the virtual file system and of the hierarchies watched for changes, kept per root build directory.
+ *
+ * <p>The image is written when a build finishes and read when a new daemon starts watching the file system.
+ * Nothing is known about the changes that happened in between, so each snapshot needs to be checked against the file system after reading, see {@link Contents#findOutdatedLocations()}:
+ * regular files must have the same length and modification time, directories must have the same entries and missing files must still be missing.
+ * Snapshots accessed via symlinks are never restored.</p>
+ */
+public class VirtualFileSystemImage {
+    private static final int MAGIC = 0x47564653;
+    private static final int VERSION = 2;
+
+    /**
+     * The coarsest timestamp granularity of the supported file systems, which is the 2 seconds of FAT.
+     *
+     * A file modified within this time before the image has been written can be changed afterwards without changing its modification time.
+     */
+    private static final long MAX_TIMESTAMP_GRANULARITY_MILLIS = 2000;
+
+    private static final byte REGULAR_FILE = 0;
+    private static final byte DIRECTORY = 1;
+    private static final byte MISSING = 2;
+
+    private final File imageDirectory;
+    private final Supplier<? extends Collection<String>> defaultExcludes;
+
+    /**
+     * Creates an image in the given directory.
+     *
+     * @param defaultExcludes the default excludes currently used for snapshotting directories.
+     */
+    public VirtualFileSystemImage(File imageDirectory, Supplier<? extends Collection<String>> defaultExcludes) {
+        this.imageDirectory = imageDirectory;
+        this.defaultExcludes = defaultExcludes;
+    }
+
+    private File imageFileFor(File rootBuildDirectory) {
+        return new File(imageDirectory, Hashing.hashString(rootBuildDirectory.getAbsolutePath()).toCompactString() + ".bin");
+    }
+
+    /**
+     * Writes the image for the given root build directory, replacing the existing one atomically.
+     */
+    public void write(File rootBuildDirectory, Collection<File> watchableHierarchies, Collection<FileSystemLocationSnapshot> rootSnapshots) throws IOException {
+        Path image = imageFileFor(rootBuildDirectory).toPath();
+        Path directory = image.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, image.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(System.currentTimeMillis());
+                Collection<String> excludes = defaultExcludes.get();
+                output.writeInt(excludes.size());
+                for (String exclude : excludes) {
+                    output.writeUTF(exclude);
+                }
+                output.writeInt(watchableHierarchies.size());
+                for (File watchableHierarchy : watchableHierarchies) {
+                    output.writeUTF(watchableHierarchy.getAbsolutePath());
+                }
+                output.writeInt(rootSnapshots.size());
+                for (FileSystemLocationSnapshot rootSnapshot : rootSnapshots) {
+                    output.writeUTF(rootSnapshot.getAbsolutePath());
+                    writeSnapshot(rootSnapshot, output);
+                }
+            }
+            try {
+                Files.move(tempFile, image, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, image, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Reads the image for the given root build directory, or returns {@code null} when there is no usable image.
+     *
+     * The contents have not been checked against the file system yet.
+     */
+    @Nullable
+    public Contents read(File rootBuildDirectory) throws IOException {
+        File imageFile = imageFileFor(rootBuildDirectory);
+        if (!imageFile.isFile()) {
+            return null;
+        }
+        List<File> watchableHierarchies = new ArrayList<>();
+        List<FileSystemLocationSnapshot> rootSnapshots = new ArrayList<>();
+        long writeTimestamp;
+        List<String> excludes = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(imageFile.toPath())))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                return null;
+            }
+            writeTimestamp = input.readLong();
+            int excludeCount = input.readInt();
+            for (int i = 0; i < excludeCount; i++) {
+                excludes.add(input.readUTF());
+            }
+            int hierarchyCount = input.readInt();
+            for (int i = 0; i < hierarchyCount; i++) {
+                watchableHierarchies.add(new File(input.readUTF()));
+            }
+            int rootCount = input.readInt();
+            for (int i = 0; i < rootCount; i++) {
+                String absolutePath = input.readUTF();
+                rootSnapshots.add(readSnapshot(absolutePath, input.readUTF(), input));
+            }
+        }
+        if (!excludes.equals(ImmutableList.copyOf(defaultExcludes.get()))) {
+            // The snapshots would have been taken differently
+            return null;
+        }
+        return new Contents(writeTimestamp, new DirectorySnapshotter.DefaultExcludes(excludes), watchableHierarchies, rootSnapshots);
+    }
+
+    private static void writeSnapshot(FileSystemLocationSnapshot snapshot, DataOutputStream output) throws IOException {
+        output.writeUTF(snapshot.getName());
+        output.writeBoolean(snapshot.getAccessType() == AccessType.VIA_SYMLINK);
+        if (snapshot instanceof RegularFileSnapshot) {
+            RegularFileSnapshot fileSnapshot = (RegularFileSnapshot) snapshot;
+            output.writeByte(REGULAR_FILE);
+            writeHash(fileSnapshot.getHash(), output);
+            output.writeLong(fileSnapshot.getMetadata().getLastModified());
+            output.writeLong(fileSnapshot.getMetadata().getLength());
+        } else if (snapshot instanceof DirectorySnapshot) {
+            DirectorySnapshot directorySnapshot = (DirectorySnapshot) snapshot;
+            output.writeByte(DIRECTORY);
+            writeHash(directorySnapshot.getHash(), output);
+            List<FileSystemLocationSnapshot> children = directorySnapshot.getChildren();
+            output.writeInt(children.size());
+            for (FileSystemLocationSnapshot child : children) {
+                writeSnapshot(child, output);
+            }
+        } else {
+            output.writeByte(MISSING);
+        }
+    }
+
+    private static FileSystemLocationSnapshot readSnapshot(String absolutePath, String name, DataInputStream input) throws IOException {
+        AccessType accessType = AccessType.viaSymlink(input.readBoolean());
+        byte type = input.readByte();
+        switch (type) {
+            case REGULAR_FILE:
+                HashCode contentHash = readHash(input);
+                long lastModified = input.readLong();
+                long length = input.readLong();
+                return new RegularFileSnapshot(absolutePath, name, contentHash, DefaultFileMetadata.file(lastModified, length, accessType));
+            case DIRECTORY:
+                HashCode directoryHash = readHash(input);
+                int childCount = input.readInt();
+                ImmutableList.Builder<FileSystemLocationSnapshot> children = ImmutableList.builderWithExpectedSize(childCount);
+                for (int i = 0; i < childCount; i++) {
+                    String childName = input.readUTF();
+                    children.add(readSnapshot(childPath(absolutePath, childName), childName, input));
+                }
+                return new DirectorySnapshot(absolutePath, name, accessType, directoryHash, children.build());
+            case MISSING:
+                return new MissingFileSnapshot(absolutePath, name, accessType);
+            default:
+                throw new IOException("Unknown snapshot type " + type);
+        }
+    }
+
+    private static void writeHash(HashCode hash, DataOutputStream output) throws IOException {
+        byte[] bytes = hash.toByteArray();
+        output.writeByte(bytes.length);
+        output.write(bytes);
+    }
+
+    private static HashCode readHash(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readUnsignedByte()];
+        input.readFully(bytes);
+        return HashCode.fromBytes(bytes);
+    }
+
+    private static String childPath(String parentPath, String childName) {
+        return parentPath.endsWith(File.separator)
+            ? parentPath + childName
+            : parentPath + File.separatorChar + childName;
+    }
+
+    public static class Contents {
+        private final long writeTimestamp;
+        private final DirectorySnapshotter.DefaultExcludes defaultExcludes;
+        private final List<File> watchableHierarchies;
+        private final List<FileSystemLocationSnapshot> snapshots;
+
+        private Contents(long writeTimestamp, DirectorySnapshotter.DefaultExcludes defaultExcludes, List<File> watchableHierarchies, List<FileSystemLocationSnapshot> snapshots) {
+            this.writeTimestamp = writeTimestamp;
+            this.defaultExcludes = defaultExcludes;
+            this.watchableHierarchies = watchableHierarchies;
+            this.snapshots = snapshots;
+        }
+
+        public List<File> getWatchableHierarchies() {
+            return watchableHierarchies;
+        }
+
+        /**
+         * The snapshots as they have been written, without checking them against the file system.
+         */
+        public List<FileSystemLocationSnapshot> getSnapshots() {
+            return snapshots;
+        }
+
+        /**
+         * Checks the snapshots against the file system and returns the locations which need to be invalidated after restoring them.
+         *
+         * A directory whose entries changed is reported by the added and removed entries,
+         * so that invalidating them keeps the unchanged entries.
+         */
+        public List<String> findOutdatedLocations() {
+            List<String> outdatedLocations = new ArrayList<>();
+            for (FileSystemLocationSnapshot snapshot : snapshots) {
+                collectOutdatedLocations(snapshot, outdatedLocations);
+            }
+            return outdatedLocations;
+        }
+
+        private void collectOutdatedLocations(FileSystemLocationSnapshot snapshot, List<String> outdatedLocations) {
+            String absolutePath = snapshot.getAbsolutePath();
+            if (snapshot.getAccessType() == AccessType.VIA_SYMLINK) {
+                outdatedLocations.add(absolutePath);
+                return;
+            }
+            Path path = new File(absolutePath).toPath();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (NoSuchFileException e) {
+                attributes = null;
+            } catch (IOException e) {
+                outdatedLocations.add(absolutePath);
+                return;
+            }
+            if (snapshot instanceof RegularFileSnapshot) {
+                long lastModified = ((RegularFileSnapshot) snapshot).getMetadata().getLastModified();
+                if (attributes == null
+                    || !attributes.isRegularFile()
+                    || attributes.size() != ((RegularFileSnapshot) snapshot).getMetadata().getLength()
+                    || attributes.lastModifiedTime().toMillis() != lastModified
+                    || lastModified >= writeTimestamp - MAX_TIMESTAMP_GRANULARITY_MILLIS) {
+                    outdatedLocations.add(absolutePath);
+                }
+            } else if (snapshot instanceof DirectorySnapshot) {
+                if (attributes == null || !attributes.isDirectory()) {
+                    outdatedLocations.add(absolutePath);
+                    return;
+                }
+                List<FileSystemLocationSnapshot> children = ((DirectorySnapshot) snapshot).getChildren();
+                for (FileSystemLocationSnapshot child : children) {
+                    collectOutdatedLocations(child, outdatedLocations);
+                }
+                collectAddedEntries(absolutePath, path, children, outdatedLocations);
+            } else if (attributes != null) {
+                outdatedLocations.add(absolutePath);
+            }
+        }
+
+        /**
+         * Collects the entries of the directory which are not in the snapshot, leaving out the ones the snapshot excluded.
+         * Removed entries are already reported when checking the children of the snapshot.
+         */
+        private void collectAddedEntries(String absolutePath, Path directory, List<FileSystemLocationSnapshot> children, List<String> outdatedLocations) {
+            Set<String> childNames = children.stream()
+                .map(FileSystemLocationSnapshot::getName)
+                .collect(Collectors.toCollection(HashSet::new));
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    String name = entry.getFileName().toString();
+                    if (!childNames.contains(name) && !isExcluded(entry, name)) {
+                        outdatedLocations.add(childPath(absolutePath, name));
+                    }
+                }
+            } catch (IOException e) {
+                outdatedLocations.add(absolutePath);
+            }
+        }
+
+        private boolean isExcluded(Path entry, String name) {
+            // Like when snapshotting, symlinks are excluded based on their target
+            return Files.isDirectory(entry)
+                ? defaultExcludes.excludeDir(name)
+                : defaultExcludes.excludeFile(name);
+        }
+    }
+}
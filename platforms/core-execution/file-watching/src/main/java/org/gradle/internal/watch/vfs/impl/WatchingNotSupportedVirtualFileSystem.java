@@ -51,6 +51,11 @@ protected SnapshotHierarchy updateNotifyingListeners(UpdateFunction updateFuncti
         return updateFunction.update(SnapshotHierarchy.NodeDiffListener.NOOP);
     }
 
+    @Override
+    protected boolean canUpdateConcurrently() {
+        return true;
+    }
+
     @Override
     public boolean afterBuildStarted(
         WatchMode watchMode,
@@ -24,6 +24,7 @@
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemNode;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.vfs.impl.AbstractVirtualFileSystem;
@@ -52,10 +53,15 @@
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem implements BuildLifecycleAwareVirtualFileSystem, FileSystemWatchingInformation, Closeable {
     private static final Logger LOGGER = LoggerFactory.getLogger(WatchingVirtualFileSystem.class);
@@ -75,7 +81,35 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
      */
     private final Set<File> watchableHierarchiesRegisteredEarly = new LinkedHashSet<>();
 
+    /**
+     * All watchable hierarchies registered with this file system.
+     */
+    private final Set<File> registeredWatchableHierarchies = new LinkedHashSet<>();
+    /**
+     * The watchable hierarchies of the current build, to be written to the {@link VirtualFileSystemImage} of its root build.
+     */
+    private final Set<File> currentBuildWatchableHierarchies = new LinkedHashSet<>();
+    /**
+     * The root build directory of the current build, which is the first watchable hierarchy registered for the build.
+     */
+    @Nullable
+    private File rootBuildDirectory;
+    @Nullable
+    private final VirtualFileSystemImage image;
+    private boolean imageRestored;
+    /**
+     * The root build directory and the snapshots of the image written last, to skip writing the same image again.
+     */
+    @Nullable
+    private File lastImageRootBuildDirectory;
+    private List<FileSystemLocationSnapshot> lastImageSnapshots = ImmutableList.of();
+
     private FileWatcherRegistry watchRegistry;
+    /**
+     * A failure to update the watchers after a concurrent store, which is handled by the next update under the lock.
+     */
+    @Nullable
+    private volatile Exception concurrentWatcherUpdateFailure;
     private Exception reasonForNotWatchingFiles;
     private boolean stateInvalidatedAtStartOfBuild;
 
@@ -86,6 +120,18 @@ public WatchingVirtualFileSystem(
         FileWatchingFilter locationsWrittenByCurrentBuild,
         WatchableFileSystemDetector watchableFileSystemDetector,
         FileChangeListeners fileChangeListeners
+    ) {
+        this(watcherRegistryFactory, root, daemonDocumentationIndex, locationsWrittenByCurrentBuild, watchableFileSystemDetector, fileChangeListeners, null);
+    }
+
+    public WatchingVirtualFileSystem(
+        FileWatcherRegistryFactory watcherRegistryFactory,
+        SnapshotHierarchy root,
+        DaemonDocumentationIndex daemonDocumentationIndex,
+        FileWatchingFilter locationsWrittenByCurrentBuild,
+        WatchableFileSystemDetector watchableFileSystemDetector,
+        FileChangeListeners fileChangeListeners,
+        @Nullable VirtualFileSystemImage image
     ) {
         super(root);
         this.watcherRegistryFactory = watcherRegistryFactory;
@@ -93,6 +139,7 @@ public WatchingVirtualFileSystem(
         this.locationsWrittenByCurrentBuild = locationsWrittenByCurrentBuild;
         this.watchableFileSystemDetector = watchableFileSystemDetector;
         this.fileChangeListeners = fileChangeListeners;
+        this.image = image;
     }
 
     @Override
@@ -108,6 +155,48 @@ protected SnapshotHierarchy updateNotifyingListeners(UpdateFunction updateFuncti
         }
     }
 
+    @Override
+    protected boolean canUpdateConcurrently() {
+        // A failed watcher update needs to stop watching, which can only be done under the lock
+        return concurrentWatcherUpdateFailure == null;
+    }
+
+    @Override
+    protected ConcurrentUpdate updateConcurrently(UpdateFunction updateFunction) {
+        FileWatcherRegistry registry = watchRegistry;
+        if (registry == null) {
+            return super.updateConcurrently(updateFunction);
+        }
+        SnapshotCollectingDiffListener diffListener = new SnapshotCollectingDiffListener();
+        SnapshotHierarchy newRoot = updateFunction.update(diffListener);
+        return new ConcurrentUpdate(newRoot, () -> {
+            if (concurrentWatcherUpdateFailure != null) {
+                // The watchers are out of sync already, and will be stopped
+                return;
+            }
+            try {
+                diffListener.publishSnapshotDiff((removedSnapshots, addedSnapshots) ->
+                    registry.virtualFileSystemContentsChanged(removedSnapshots, addedSnapshots, newRoot)
+                );
+            } catch (Exception e) {
+                concurrentWatcherUpdateFailure = e;
+            }
+        });
+    }
+
+    @Override
+    protected void updateRootUnderLock(UnaryOperator<SnapshotHierarchy> updateFunction) {
+        super.updateRootUnderLock(currentRoot -> {
+            Exception failure = concurrentWatcherUpdateFailure;
+            if (failure == null) {
+                return updateFunction.apply(currentRoot);
+            }
+            concurrentWatcherUpdateFailure = null;
+            logWatchingError(failure, FILE_WATCHING_ERROR_MESSAGE_DURING_BUILD, null);
+            return updateFunction.apply(stopWatchingAndInvalidateHierarchyAfterError(currentRoot));
+        });
+    }
+
     @Override
     public boolean afterBuildStarted(
         WatchMode watchMode,
@@ -164,6 +253,11 @@ public SnapshotHierarchy call(BuildOperationContext context) {
                             if (stateInvalidatedAtStartOfBuild) {
                                 LOGGER.warn("Parts of the virtual file system have been invalidated since they didn't support watching");
                             }
+                            if (statisticsSinceLastBuild.getNumberOfEvictedSnapshots() > 0) {
+                                LOGGER.warn("Dropped {} snapshots from the virtual file system to stay within the budget of {} watched directories",
+                                    statisticsSinceLastBuild.getNumberOfEvictedSnapshots(),
+                                    statisticsSinceLastBuild.getWatchBudget());
+                            }
                         }
                     }
                     if (watchRegistry != null) {
@@ -205,6 +299,11 @@ public BuildOperationDescriptor.Builder description() {
     @Override
     public void registerWatchableHierarchy(File watchableHierarchy) {
         updateRootUnderLock(currentRoot -> {
+            registeredWatchableHierarchies.add(watchableHierarchy);
+            currentBuildWatchableHierarchies.add(watchableHierarchy);
+            if (rootBuildDirectory == null) {
+                rootBuildDirectory = watchableHierarchy;
+            }
             if (watchRegistry == null) {
                 watchableHierarchiesRegisteredEarly.add(watchableHierarchy);
                 return currentRoot;
@@ -298,10 +397,125 @@ public BuildOperationDescriptor.Builder description() {
                     .details(BuildFinishedFileSystemWatchingBuildOperationType.Details.INSTANCE);
             }
         }));
+        writeImage();
         // Log problems to daemon log
         warningLogger = LOGGER;
     }
 
+    /**
+     * Writes the retained state of the watchable hierarchies of the finishing build to the image of its root build, so a new daemon can start from it.
+     *
+     * Only done while watching, since otherwise there is no retained state.
+     * The image is not written again when none of its snapshots changed since it was written last.
+     */
+    private void writeImage() {
+        List<File> watchableHierarchies = new ArrayList<>();
+        AtomicReference<File> imageRootBuildDirectory = new AtomicReference<>();
+        AtomicReference<SnapshotHierarchy> retainedRoot = new AtomicReference<>();
+        underLock(() -> {
+            if (watchRegistry != null) {
+                watchableHierarchies.addAll(currentBuildWatchableHierarchies);
+                imageRootBuildDirectory.set(rootBuildDirectory);
+                retainedRoot.set(root);
+            }
+            currentBuildWatchableHierarchies.clear();
+            rootBuildDirectory = null;
+        });
+        if (image == null || imageRootBuildDirectory.get() == null || retainedRoot.get() == null) {
+            return;
+        }
+        List<FileSystemLocationSnapshot> snapshots = snapshotsOf(retainedRoot.get(), watchableHierarchies);
+        if (imageRootBuildDirectory.get().equals(lastImageRootBuildDirectory) && isSameSnapshots(snapshots, lastImageSnapshots)) {
+            return;
+        }
+        try {
+            image.write(imageRootBuildDirectory.get(), watchableHierarchies, snapshots);
+            lastImageRootBuildDirectory = imageRootBuildDirectory.get();
+            lastImageSnapshots = snapshots;
+        } catch (IOException e) {
+            LOGGER.info("Unable to write virtual file system image", e);
+        }
+    }
+
+    private static List<FileSystemLocationSnapshot> snapshotsOf(SnapshotHierarchy root, Collection<File> watchableHierarchies) {
+        // Hierarchies may contain each other, for example an included build within the directory of the root build
+        Map<String, FileSystemLocationSnapshot> snapshots = new LinkedHashMap<>();
+        for (File watchableHierarchy : watchableHierarchies) {
+            root.rootSnapshotsUnder(watchableHierarchy.getAbsolutePath())
+                .forEach(snapshot -> snapshots.putIfAbsent(snapshot.getAbsolutePath(), snapshot));
+        }
+        return new ArrayList<>(snapshots.values());
+    }
+
+    /**
+     * Snapshots are immutable and the hierarchy keeps the unchanged ones when updated, so comparing their identities is enough.
+     */
+    private static boolean isSameSnapshots(List<FileSystemLocationSnapshot> snapshots, List<FileSystemLocationSnapshot> otherSnapshots) {
+        if (snapshots.size() != otherSnapshots.size()) {
+            return false;
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            if (snapshots.get(i) != otherSnapshots.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Restores the state from the image written by a previous daemon for the root build, keeping only what still matches the file system.
+     *
+     * Only done once per daemon, after the watchers have been started.
+     * The snapshots from the image are stored and watched before they are checked against the file system.
+     * A change happening while checking is then either found by the check,
+     * or its event invalidates the restored snapshots as soon as this update releases the lock.
+     */
+    @CheckReturnValue
+    private SnapshotHierarchy restoreFromImage(SnapshotHierarchy currentRoot) {
+        if (image == null || imageRestored || rootBuildDirectory == null) {
+            return currentRoot;
+        }
+        imageRestored = true;
+        VirtualFileSystemImage.Contents contents;
+        try {
+            contents = image.read(rootBuildDirectory);
+        } catch (IOException e) {
+            LOGGER.info("Unable to read virtual file system image", e);
+            return currentRoot;
+        }
+        if (contents == null) {
+            return currentRoot;
+        }
+        for (File watchableHierarchy : contents.getWatchableHierarchies()) {
+            currentBuildWatchableHierarchies.add(watchableHierarchy);
+            if (registeredWatchableHierarchies.add(watchableHierarchy)) {
+                watchRegistry.registerWatchableHierarchy(watchableHierarchy, currentRoot);
+            }
+        }
+        SnapshotCollectingDiffListener storeDiffListener = new SnapshotCollectingDiffListener();
+        SnapshotHierarchy storedRoot = currentRoot;
+        for (FileSystemLocationSnapshot snapshot : contents.getSnapshots()) {
+            storedRoot = storedRoot.store(snapshot.getAbsolutePath(), snapshot, storeDiffListener);
+        }
+        SnapshotHierarchy watchedRoot = storedRoot;
+        storeDiffListener.publishSnapshotDiff((removedSnapshots, addedSnapshots) ->
+            watchRegistry.virtualFileSystemContentsChanged(removedSnapshots, addedSnapshots, watchedRoot)
+        );
+
+        List<String> outdatedLocations = contents.findOutdatedLocations();
+        SnapshotCollectingDiffListener invalidateDiffListener = new SnapshotCollectingDiffListener();
+        SnapshotHierarchy validatedRoot = watchedRoot;
+        for (String outdatedLocation : outdatedLocations) {
+            validatedRoot = validatedRoot.invalidate(outdatedLocation, invalidateDiffListener);
+        }
+        SnapshotHierarchy restoredRoot = validatedRoot;
+        invalidateDiffListener.publishSnapshotDiff((removedSnapshots, addedSnapshots) ->
+            watchRegistry.virtualFileSystemContentsChanged(removedSnapshots, addedSnapshots, restoredRoot)
+        );
+        LOGGER.info("Restored {} snapshots from virtual file system image, invalidated {} locations which changed since", contents.getSnapshots().size(), outdatedLocations.size());
+        return restoredRoot;
+    }
+
     /**
      * Start watching the known areas of the file system for changes.
      */
@@ -316,7 +530,7 @@ private SnapshotHierarchy startWatching(SnapshotHierarchy currentRoot, WatchMode
             SnapshotHierarchy newRoot = watchRegistry.updateVfsOnBuildStarted(currentRoot.empty(), watchMode, unsupportedFileSystems);
             watchableHierarchiesRegisteredEarly.forEach(watchableHierarchy -> watchRegistry.registerWatchableHierarchy(watchableHierarchy, newRoot));
             watchableHierarchiesRegisteredEarly.clear();
-            return newRoot;
+            return restoreFromImage(newRoot);
         } catch (Exception ex) {
             logWatchingError(ex, FILE_WATCHING_ERROR_MESSAGE_DURING_BUILD, null);
             closeUnderLock();
@@ -121,4 +121,73 @@ class NonHierarchicalFileWatcherUpdaterTest extends AbstractFileWatcherUpdaterTe
         1 * watcher.stopWatching({ equalIgnoringOrder(it, [unwatchableContent.parentFile]) })
         0 * _
     }
+
+    def "drops snapshots exceeding the watch budget and makes room for them in the next build"() {
+        // The probe directory and the watchable hierarchy take up two watches
+        updater = new NonHierarchicalFileWatcherUpdater(watcher, probeRegistry, watchableHierarchies, movedWatchedDirectoriesSupplier, 4)
+        def watchableHierarchy = file("watchable").createDir()
+        def first = watchableHierarchy.file("first/file.txt").createFile()
+        def second = watchableHierarchy.file("second/file.txt").createFile()
+        def third = watchableHierarchy.file("third/file.txt").createFile()
+
+        when:
+        registerWatchableHierarchies([watchableHierarchy])
+        addSnapshot(snapshotRegularFile(first))
+        addSnapshot(snapshotRegularFile(second))
+        addSnapshot(snapshotRegularFile(third))
+        then:
+        0 * watcher.startWatching({ it.contains(third.parentFile) })
+        vfsHasSnapshotsAt(third)
+
+        when:
+        buildFinished()
+        then:
+        vfsHasSnapshotsAt(first)
+        vfsHasSnapshotsAt(second)
+        !vfsHasSnapshotsAt(third)
+        updater.getAndResetNumberOfEvictedSnapshots() == 1
+
+        when:
+        buildStarted()
+        addSnapshot(snapshotRegularFile(third))
+        buildFinished()
+        then:
+        vfsHasSnapshotsAt(first) != vfsHasSnapshotsAt(second)
+        !vfsHasSnapshotsAt(third)
+        updater.getAndResetNumberOfEvictedSnapshots() == 2
+
+        when:
+        buildStarted()
+        addSnapshot(snapshotRegularFile(third))
+        buildFinished()
+        then:
+        1 * watcher.startWatching({ equalIgnoringOrder(it, [third.parentFile]) })
+        vfsHasSnapshotsAt(third)
+        updater.getAndResetNumberOfEvictedSnapshots() == 0
+    }
+
+    def "counts missing watches of a snapshot over budget only while it is in the VFS"() {
+        // The probe directory and the watchable hierarchy take up two watches
+        updater = new NonHierarchicalFileWatcherUpdater(watcher, probeRegistry, watchableHierarchies, movedWatchedDirectoriesSupplier, 4)
+        def watchableHierarchy = file("watchable").createDir()
+        def first = watchableHierarchy.file("first/file.txt").createFile()
+        def second = watchableHierarchy.file("second/file.txt").createFile()
+        def third = watchableHierarchy.file("third/file.txt").createFile()
+
+        when:
+        registerWatchableHierarchies([watchableHierarchy])
+        addSnapshot(snapshotRegularFile(first))
+        addSnapshot(snapshotRegularFile(second))
+        buildFinished()
+        buildStarted()
+        3.times {
+            invalidate(third.absolutePath)
+            addSnapshot(snapshotRegularFile(third))
+        }
+        buildFinished()
+        then:
+        vfsHasSnapshotsAt(first) != vfsHasSnapshotsAt(second)
+        !vfsHasSnapshotsAt(third)
+        updater.getAndResetNumberOfEvictedSnapshots() == 2
+    }
 }
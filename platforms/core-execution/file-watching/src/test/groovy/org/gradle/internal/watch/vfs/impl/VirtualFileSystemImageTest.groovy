@@ -0,0 +1,188 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl
+
+import org.gradle.internal.file.FileMetadata.AccessType
+import org.gradle.internal.file.impl.DefaultFileMetadata
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.internal.snapshot.TestSnapshotFixture
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.nio.file.Files
+import java.nio.file.attribute.BasicFileAttributes
+
+class VirtualFileSystemImageTest extends Specification implements TestSnapshotFixture {
+
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    List<String> defaultExcludes = ["**/.git", "**/.git/**", "**/.DS_Store"]
+    VirtualFileSystemImage image
+    TestFile hierarchy
+
+    def setup() {
+        image = new VirtualFileSystemImage(temporaryFolder.file("vfs"), { defaultExcludes })
+        hierarchy = temporaryFolder.createDir("project")
+    }
+
+    def "restores unchanged snapshots"() {
+        def dir = hierarchy.createDir("dir")
+        def first = dir.createFile("first.txt") << "first"
+        def second = dir.createFile("second.txt") << "second"
+        def missingFile = hierarchy.file("missing.txt")
+        def directorySnapshot = directory(dir.absolutePath, [snapshotOf(first), snapshotOf(second)])
+        def missingSnapshot = missing(missingFile.absolutePath)
+
+        when:
+        image.write(hierarchy, [hierarchy], [directorySnapshot, missingSnapshot])
+        def contents = image.read(hierarchy)
+
+        then:
+        contents.watchableHierarchies == [hierarchy]
+        contents.snapshots*.absolutePath == [dir.absolutePath, missingFile.absolutePath]
+        contents.snapshots[0].isContentAndMetadataUpToDate(directorySnapshot)
+        contents.snapshots[0].hash == directorySnapshot.hash
+        contents.findOutdatedLocations().empty
+    }
+
+    def "finds changed entries of directories"() {
+        def dir = hierarchy.createDir("dir")
+        def unchanged = dir.createFile("unchanged.txt") << "unchanged"
+        def changed = dir.createFile("changed.txt") << "changed"
+        def sub = dir.createDir("sub")
+        def inSub = sub.createFile("file.txt") << "file"
+        image.write(hierarchy, [hierarchy], [directory(dir.absolutePath, [snapshotOf(unchanged), snapshotOf(changed), directory(sub.absolutePath, [snapshotOf(inSub)])])])
+
+        when:
+        changed << "more content"
+
+        then:
+        image.read(hierarchy).findOutdatedLocations() == [changed.absolutePath]
+
+        when:
+        def added = sub.createFile("added.txt")
+
+        then:
+        image.read(hierarchy).findOutdatedLocations() as Set == [changed.absolutePath, added.absolutePath] as Set
+    }
+
+    def "ignores default excluded entries of directories"() {
+        def dir = hierarchy.createDir("dir")
+        def file = dir.createFile("file.txt") << "file"
+        dir.createDir(".git").createFile("HEAD")
+        dir.createFile(".DS_Store")
+        image.write(hierarchy, [hierarchy], [directory(dir.absolutePath, [snapshotOf(file)])])
+
+        expect:
+        image.read(hierarchy).findOutdatedLocations().empty
+    }
+
+    def "finds files which have been created or removed"() {
+        def file = hierarchy.createFile("file.txt") << "content"
+        def missingFile = hierarchy.file("missing.txt")
+        image.write(hierarchy, [hierarchy], [snapshotOf(file), missing(missingFile.absolutePath)])
+
+        when:
+        file.delete()
+        missingFile.createFile()
+
+        then:
+        image.read(hierarchy).findOutdatedLocations() == [file.absolutePath, missingFile.absolutePath]
+    }
+
+    def "files modified shortly before writing the image are outdated"() {
+        def file = hierarchy.createFile("file.txt") << "content"
+        def attributes = Files.readAttributes(file.toPath(), BasicFileAttributes)
+        def snapshot = new RegularFileSnapshot(
+            file.absolutePath,
+            file.name,
+            TestHashCodes.hashCodeFrom(file.text.hashCode()),
+            DefaultFileMetadata.file(attributes.lastModifiedTime().toMillis(), attributes.size(), AccessType.DIRECT)
+        )
+
+        when:
+        image.write(hierarchy, [hierarchy], [snapshot])
+
+        then:
+        image.read(hierarchy).findOutdatedLocations() == [file.absolutePath]
+    }
+
+    def "snapshots accessed via symlinks are outdated"() {
+        def file = hierarchy.createFile("file.txt") << "content"
+
+        when:
+        image.write(hierarchy, [hierarchy], [snapshotOf(file, AccessType.VIA_SYMLINK)])
+
+        then:
+        image.read(hierarchy).findOutdatedLocations() == [file.absolutePath]
+    }
+
+    def "keeps one image per root build directory"() {
+        def file = hierarchy.createFile("file.txt") << "content"
+        def otherHierarchy = temporaryFolder.createDir("other")
+        def otherFile = otherHierarchy.createFile("file.txt") << "other"
+
+        when:
+        image.write(hierarchy, [hierarchy], [snapshotOf(file)])
+        image.write(otherHierarchy, [otherHierarchy], [snapshotOf(otherFile)])
+
+        then:
+        image.read(hierarchy).snapshots*.absolutePath == [file.absolutePath]
+        image.read(otherHierarchy).snapshots*.absolutePath == [otherFile.absolutePath]
+        image.read(temporaryFolder.file("unknown")) == null
+    }
+
+    def "ignores images written with different default excludes"() {
+        def file = hierarchy.createFile("file.txt") << "content"
+        image.write(hierarchy, [hierarchy], [snapshotOf(file)])
+
+        when:
+        defaultExcludes = ["**/.git"]
+
+        then:
+        image.read(hierarchy) == null
+    }
+
+    def "ignores missing or unknown images"() {
+        expect:
+        image.read(hierarchy) == null
+
+        when:
+        image.write(hierarchy, [hierarchy], [])
+        temporaryFolder.file("vfs").listFiles().each { it.text = "unknown" }
+
+        then:
+        image.read(hierarchy) == null
+    }
+
+    private static FileSystemLocationSnapshot snapshotOf(TestFile file, AccessType accessType = AccessType.DIRECT) {
+        // Files modified right before the image is written can't be restored
+        file.setLastModified(System.currentTimeMillis() - 10_000)
+        def attributes = Files.readAttributes(file.toPath(), BasicFileAttributes)
+        new RegularFileSnapshot(
+            file.absolutePath,
+            file.name,
+            TestHashCodes.hashCodeFrom(file.text.hashCode()),
+            DefaultFileMetadata.file(attributes.lastModifiedTime().toMillis(), attributes.size(), accessType)
+        )
+    }
+}
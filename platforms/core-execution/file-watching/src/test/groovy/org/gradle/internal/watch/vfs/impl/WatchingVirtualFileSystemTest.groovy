@@ -20,6 +20,7 @@ import net.rubygrapefruit.platform.NativeException
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.snapshot.CaseSensitivity
 import org.gradle.internal.snapshot.SnapshotHierarchy
+import org.gradle.internal.snapshot.TestSnapshotFixture
 import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy
 import org.gradle.internal.watch.registry.FileWatcherRegistry
 import org.gradle.internal.watch.registry.FileWatcherRegistryFactory
@@ -31,7 +32,7 @@ import org.gradle.internal.watch.vfs.WatchLogging
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector
 import spock.lang.Specification
 
-class WatchingVirtualFileSystemTest extends Specification {
+class WatchingVirtualFileSystemTest extends Specification implements TestSnapshotFixture {
     def watcherRegistryFactory = Mock(FileWatcherRegistryFactory)
     def watcherRegistry = Mock(FileWatcherRegistry)
     def emptySnapshotHierarchy = DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE)
@@ -164,6 +165,52 @@ class WatchingVirtualFileSystemTest extends Specification {
         1 * watcherRegistry.registerWatchableHierarchy(newWatchableHierarchy, _)
     }
 
+    def "writes the snapshots of the finishing build to the image of its root build unless they did not change"() {
+        def image = Mock(VirtualFileSystemImage)
+        def vfsWithImage = new WatchingVirtualFileSystem(
+            watcherRegistryFactory,
+            emptySnapshotHierarchy,
+            daemonDocumentationIndex,
+            locationsUpdatedByCurrentBuild,
+            watchableFileSystemDetector,
+            fileChangeListeners,
+            image
+        )
+        def rootBuild = new File("root").absoluteFile
+        def otherRootBuild = new File("other").absoluteFile
+        def snapshot = regularFile(new File(rootBuild, "file.txt").absolutePath)
+        def otherSnapshot = regularFile(new File(otherRootBuild, "file.txt").absolutePath)
+        watcherRegistryFactory.createFileWatcherRegistry(_) >> watcherRegistry
+        watcherRegistry.updateVfsOnBuildStarted(_, _, _) >> { SnapshotHierarchy root, watchMode, unsupportedFileSystems -> root }
+        watcherRegistry.getAndResetStatistics() >> Stub(FileWatcherRegistry.FileWatchingStatistics)
+        watcherRegistry.updateVfsOnBuildFinished(_, _, _, _) >> { SnapshotHierarchy root, watchMode, maximumNumberOfWatchedHierarchies, unsupportedFileSystems -> root }
+
+        when:
+        vfsWithImage.afterBuildStarted(WatchMode.ENABLED, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner)
+        vfsWithImage.registerWatchableHierarchy(rootBuild)
+        vfsWithImage.updateRootUnderLock { root ->
+            root.store(snapshot.absolutePath, snapshot, SnapshotHierarchy.NodeDiffListener.NOOP)
+                .store(otherSnapshot.absolutePath, otherSnapshot, SnapshotHierarchy.NodeDiffListener.NOOP)
+        }
+        vfsWithImage.beforeBuildFinished(WatchMode.ENABLED, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner, Integer.MAX_VALUE)
+        then:
+        1 * image.write(rootBuild, [rootBuild], [snapshot])
+
+        when:
+        vfsWithImage.afterBuildStarted(WatchMode.ENABLED, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner)
+        vfsWithImage.registerWatchableHierarchy(rootBuild)
+        vfsWithImage.beforeBuildFinished(WatchMode.ENABLED, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner, Integer.MAX_VALUE)
+        then:
+        0 * image.write(_, _, _)
+
+        when:
+        vfsWithImage.afterBuildStarted(WatchMode.ENABLED, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner)
+        vfsWithImage.registerWatchableHierarchy(otherRootBuild)
+        vfsWithImage.beforeBuildFinished(WatchMode.ENABLED, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner, Integer.MAX_VALUE)
+        then:
+        1 * image.write(otherRootBuild, [otherRootBuild], [otherSnapshot])
+    }
+
     def "detects unsupported file systems on default watch mode"() {
         def unsupportedFileSystems = [new File("unsupported")]
 
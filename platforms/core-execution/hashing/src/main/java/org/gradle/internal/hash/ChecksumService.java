@@ -19,6 +19,8 @@
 import org.gradle.internal.service.scopes.ServiceScope;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 
 @ServiceScope(Scopes.BuildSession.class)
 public interface ChecksumService {
@@ -31,4 +33,18 @@ public interface ChecksumService {
     HashCode sha512(File file);
 
     HashCode hash(File src, String algorithm);
+
+    /**
+     * Returns the hash functions that have been used to checksum files so far. Code that writes files can compute these checksums
+     * while writing, and hand them over using {@link #recordChecksum(File, HashFunction, HashCode)}.
+     */
+    default Collection<HashFunction> getRequestedHashFunctions() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Records the checksum of a file that was computed while the file was written, so that the file does not need to be read again to compute it.
+     */
+    default void recordChecksum(File file, HashFunction hashFunction, HashCode checksum) {
+    }
 }
@@ -36,4 +36,13 @@ class DefaultStreamHasherTest extends Specification {
         hash.toString() == "af67a92e9f73b51572e9b94e343d2840"
         output.toByteArray() == "hello".bytes
     }
+
+    def "can hash input with a different hash function"() {
+        when:
+        def hash = new DefaultStreamHasher(Hashing.murmur3()).hash(new ByteArrayInputStream("hello".bytes))
+        then:
+        hash.length() == 16
+        hash != new DefaultStreamHasher().hash(new ByteArrayInputStream("hello".bytes))
+        hash == new DefaultStreamHasher(Hashing.murmur3()).hash(new ByteArrayInputStream("hello".bytes))
+    }
 }
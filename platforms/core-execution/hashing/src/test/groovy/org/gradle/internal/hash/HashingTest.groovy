@@ -89,6 +89,29 @@ class HashingTest extends Specification {
         hashes.size() == threadRange.size()
     }
 
+    def 'murmur3 hashes content like the reference implementation'() {
+        given:
+        def bytes = ('a'..'z').join().bytes
+
+        expect:
+        Hashing.murmur3().hashBytes(bytes).toByteArray() == com.google.common.hash.Hashing.murmur3_128().hashBytes(bytes).asBytes()
+        Hashing.murmur3().hashStream(new ByteArrayInputStream(bytes)) == Hashing.murmur3().hashBytes(bytes)
+        Hashing.murmur3().hexDigits == Hashing.md5().hexDigits
+    }
+
+    def 'cannot call murmur3 hash multiple times'() {
+        given:
+        def hasher = Hashing.murmur3().newHasher()
+        hasher.putInt(1)
+        hasher.hash()
+
+        when:
+        hasher.hash()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
     def 'null does not collide with other values'() {
         expect:
         def hasher = Hashing.newHasher()
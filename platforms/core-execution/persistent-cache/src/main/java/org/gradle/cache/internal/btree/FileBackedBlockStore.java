@@ -26,15 +26,26 @@
 
 public class FileBackedBlockStore implements BlockStore {
     private final File cacheFile;
+    private final boolean memoryMappedReads;
     private RandomAccessFile file;
     private ByteOutput output;
     private ByteInput input;
+    private MappedByteInput mappedInput;
     private long nextBlock;
     private Factory factory;
     private long currentFileSize;
 
     public FileBackedBlockStore(File cacheFile) {
+        this(cacheFile, false);
+    }
+
+    /**
+     * @param memoryMappedReads whether to read blocks through memory mapped regions of the cache file, instead of reading them using file I/O.
+     * Blocks are always written using file I/O.
+     */
+    public FileBackedBlockStore(File cacheFile, boolean memoryMappedReads) {
         this.cacheFile = cacheFile;
+        this.memoryMappedReads = memoryMappedReads;
     }
 
     @Override
@@ -50,6 +61,7 @@ public void open(Runnable runnable, Factory factory) {
             file = openRandomAccessFile();
             output = new ByteOutput(file);
             input = new ByteInput(file);
+            mappedInput = memoryMappedReads ? new MappedByteInput(file.getChannel()) : null;
             currentFileSize = file.length();
             nextBlock = currentFileSize;
             if (currentFileSize == 0) {
@@ -75,6 +87,9 @@ private RandomAccessFile randomAccessFile(String mode) throws FileNotFoundExcept
     @Override
     public void close() {
         try {
+            if (mappedInput != null) {
+                mappedInput.reset();
+            }
             file.close();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -84,6 +99,9 @@ public void close() {
     @Override
     public void clear() {
         try {
+            if (mappedInput != null) {
+                mappedInput.reset();
+            }
             file.setLength(0);
             currentFileSize = 0;
         } catch (IOException e) {
@@ -236,7 +254,7 @@ public void read() throws Exception {
                 throw blockCorruptedException();
             }
 
-            DataInputStream inputStream = input.start(pos);
+            DataInputStream inputStream = mappedInput != null ? mappedInput.start(pos, currentFileSize) : input.start(pos);
 
             BlockPayload payload = getPayload();
 
@@ -254,12 +272,16 @@ public void read() throws Exception {
             payload.read(inputStream);
 
             // Read and verify count
-            long actualCount = input.getBytesRead();
+            long actualCount = mappedInput != null ? mappedInput.getBytesRead() : input.getBytesRead();
             long count = inputStream.readInt();
             if (actualCount != count) {
                 throw blockCorruptedException();
             }
-            input.done();
+            if (mappedInput != null) {
+                mappedInput.done();
+            } else {
+                input.done();
+            }
         }
 
         @Override
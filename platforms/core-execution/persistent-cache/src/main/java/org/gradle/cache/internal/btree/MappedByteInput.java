@@ -0,0 +1,138 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Allows a stream of bytes to be read from a particular location of a file, through memory mapped regions of the file.
+ *
+ * <p>The file is mapped in fixed size regions on demand, so reading does not require any system calls once a region has been mapped.
+ * A region at the end of the file is mapped up to the length of the file at that time, and is mapped again when reading beyond it after the file has grown.</p>
+ */
+class MappedByteInput {
+    private static final int REGION_SHIFT = 24;
+    private static final int REGION_SIZE = 1 << REGION_SHIFT;
+
+    private final FileChannel channel;
+    private final RegionInputStream regionInputStream = new RegionInputStream();
+    private MappedByteBuffer[] regions = new MappedByteBuffer[0];
+
+    public MappedByteInput(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Starts reading from the given offset, reading no further than the given length of the file.
+     */
+    public DataInputStream start(long offset, long length) {
+        regionInputStream.start(offset, length);
+        return new DataInputStream(regionInputStream);
+    }
+
+    /**
+     * Returns the number of bytes read since {@link #start(long, long)} was called.
+     */
+    public long getBytesRead() {
+        return regionInputStream.position - regionInputStream.startPosition;
+    }
+
+    /**
+     * Finishes reading.
+     */
+    public void done() {
+        regionInputStream.start(0, 0);
+    }
+
+    /**
+     * Discards all mapped regions, for example because the file has been truncated.
+     */
+    public void reset() {
+        regions = new MappedByteBuffer[0];
+    }
+
+    private ByteBuffer regionFor(long position, long length) throws IOException {
+        int index = (int) (position >>> REGION_SHIFT);
+        long regionStart = (long) index << REGION_SHIFT;
+        if (index >= regions.length) {
+            regions = Arrays.copyOf(regions, index + 1);
+        }
+        MappedByteBuffer region = regions[index];
+        if (region == null || position - regionStart >= region.capacity()) {
+            long regionLength = Math.min(REGION_SIZE, length - regionStart);
+            region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionLength);
+            regions[index] = region;
+        }
+        return region;
+    }
+
+    private class RegionInputStream extends InputStream {
+        private long startPosition;
+        private long position;
+        private long length;
+
+        void start(long offset, long length) {
+            this.startPosition = offset;
+            this.position = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position >= length) {
+                return -1;
+            }
+            ByteBuffer region = regionFor(position, length);
+            int value = region.get((int) (position & (REGION_SIZE - 1))) & 0xFF;
+            position++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= length) {
+                return -1;
+            }
+            ByteBuffer region = regionFor(position, length).duplicate();
+            int offsetInRegion = (int) (position & (REGION_SIZE - 1));
+            // Do not read beyond the end of the region, the caller will ask for the remaining bytes
+            int count = (int) Math.min(len, Math.min(region.capacity() - offsetInRegion, length - position));
+            // Cast so that code compiled by Java 9+ can run on Java 8, where ByteBuffer does not override position(int)
+            ((Buffer) region).position(offsetInRegion);
+            region.get(b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, length - position));
+            position += skipped;
+            return skipped;
+        }
+    }
+}
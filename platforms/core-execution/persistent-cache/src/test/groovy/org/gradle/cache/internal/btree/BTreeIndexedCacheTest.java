@@ -15,6 +15,7 @@
  */
 package org.gradle.cache.internal.btree;
 
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.DefaultSerializer;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.test.fixtures.file.TestFile;
@@ -39,6 +40,7 @@
 import static org.junit.Assert.assertNull;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
 
 public class BTreeIndexedCacheTest {
     @Rule
@@ -260,6 +262,15 @@ public void canHandleLargeNumberOfEntries() {
         cache.close();
     }
 
+    @Test
+    public void persistsAddedUpdatedAndRemovedEntriesUsingMemoryMappedReads() {
+        assumeFalse(OperatingSystem.current().isWindows());
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, stringSerializer, integerSerializer, (short) 4, 100, true);
+        checkUpdates(3, 2, 11, 5, 7, 1, 10, 8, 9, 4, 6, 0);
+        checkAddsAndRemoves(4, 12, 9, 1, 3, 10, 11, 7, 8, 2, 5, 6);
+        verifyAndCloseCache();
+    }
+
     @Test
     public void persistsRemovalOfEntries() {
         createCache();
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.UnitTestPreconditions
+import org.junit.Rule
+import spock.lang.Specification
+
+@Requires(UnitTestPreconditions.NotWindows)
+class MappedByteInputTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    RandomAccessFile file
+    MappedByteInput input
+
+    def setup() {
+        file = new RandomAccessFile(tmpDir.file("test.bin"), "rw")
+        input = new MappedByteInput(file.channel)
+    }
+
+    def cleanup() {
+        input.reset()
+        file.close()
+    }
+
+    def "can reuse to read from multiple locations in file"() {
+        given:
+        file.seek(0)
+        file.writeInt(123)
+        file.writeInt(321)
+        file.writeInt(456)
+
+        expect:
+        def stream = input.start(0, file.length())
+        stream.readInt() == 123
+        stream.readInt() == 321
+        input.bytesRead == 8
+        input.done()
+
+        def stream2 = input.start(4, file.length())
+        stream2.readInt() == 321
+        stream2.readInt() == 456
+        input.done()
+
+        def stream3 = input.start(0, file.length())
+        stream3.readInt() == 123
+        input.done()
+    }
+
+    def "can read content written after file has grown"() {
+        given:
+        file.seek(0)
+        file.writeInt(123)
+        def stream = input.start(0, file.length())
+        assert stream.readInt() == 123
+        input.done()
+
+        when:
+        file.writeInt(321)
+        def bytes = new byte[8]
+        input.start(0, file.length()).readFully(bytes)
+
+        then:
+        new DataInputStream(new ByteArrayInputStream(bytes)).with { [readInt(), readInt()] } == [123, 321]
+    }
+
+    def "cannot read beyond end of file"() {
+        given:
+        file.writeInt(123)
+
+        when:
+        input.start(4, file.length()).readInt()
+
+        then:
+        EOFException e = thrown()
+    }
+}
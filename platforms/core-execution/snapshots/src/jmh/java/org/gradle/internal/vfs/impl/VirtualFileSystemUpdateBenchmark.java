@@ -0,0 +1,131 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.vfs.impl;
+
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.snapshot.CaseSensitivity;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.SnapshotHierarchy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput of storing snapshots of unrelated locations in the virtual file system from 1 to 64 threads,
+ * with the stores going through the update lock and with the root being swapped atomically.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class VirtualFileSystemUpdateBenchmark {
+    private static final int FILES_PER_THREAD = 1000;
+    private static final HashCode CONTENT_HASH = HashCode.fromBytes(new byte[16]);
+
+    @Param({"true", "false"})
+    boolean concurrentUpdates;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private BenchmarkVirtualFileSystem virtualFileSystem;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        virtualFileSystem = new BenchmarkVirtualFileSystem(concurrentUpdates);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadLocations {
+        FileSystemLocationSnapshot[] snapshots;
+        int next;
+
+        @Setup
+        public void setup(VirtualFileSystemUpdateBenchmark benchmark) {
+            String directory = "/project/module" + benchmark.threadCount.incrementAndGet() + "/build/classes";
+            snapshots = new FileSystemLocationSnapshot[FILES_PER_THREAD];
+            for (int i = 0; i < FILES_PER_THREAD; i++) {
+                String name = "Class" + i + ".class";
+                snapshots[i] = new RegularFileSnapshot(directory + "/" + name, name, CONTENT_HASH, DefaultFileMetadata.file(i, i, AccessType.DIRECT));
+            }
+        }
+
+        FileSystemLocationSnapshot nextSnapshot() {
+            FileSystemLocationSnapshot snapshot = snapshots[next];
+            next = (next + 1) % FILES_PER_THREAD;
+            return snapshot;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public FileSystemLocationSnapshot store_1_thread(ThreadLocations locations) {
+        return store(locations);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public FileSystemLocationSnapshot store_4_threads(ThreadLocations locations) {
+        return store(locations);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public FileSystemLocationSnapshot store_16_threads(ThreadLocations locations) {
+        return store(locations);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public FileSystemLocationSnapshot store_64_threads(ThreadLocations locations) {
+        return store(locations);
+    }
+
+    private FileSystemLocationSnapshot store(ThreadLocations locations) {
+        FileSystemLocationSnapshot snapshot = locations.nextSnapshot();
+        return virtualFileSystem.store(snapshot.getAbsolutePath(), () -> snapshot);
+    }
+
+    private static class BenchmarkVirtualFileSystem extends AbstractVirtualFileSystem {
+        private final boolean concurrentUpdates;
+
+        BenchmarkVirtualFileSystem(boolean concurrentUpdates) {
+            super(DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE));
+            this.concurrentUpdates = concurrentUpdates;
+        }
+
+        @Override
+        protected boolean canUpdateConcurrently() {
+            return concurrentUpdates;
+        }
+
+        @Override
+        protected SnapshotHierarchy updateNotifyingListeners(UpdateFunction updateFunction) {
+            return updateFunction.update(SnapshotHierarchy.NodeDiffListener.NOOP);
+        }
+    }
+}
@@ -16,7 +16,6 @@
 
 package org.gradle.internal.snapshot.impl;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Interner;
@@ -56,6 +55,9 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -64,9 +66,17 @@
 
 /**
  * For creating {@link DirectorySnapshot}s of directories.
+ *
+ * When created with a fork/join pool, unfiltered directories are snapshotted in that pool:
+ * sibling subdirectories are walked and hashed concurrently, and their snapshots are joined into the snapshot of their parent.
+ * Since the children of a directory are sorted before its Merkle hash is calculated, the resulting snapshots are the same as when walking sequentially.
  */
 public class DirectorySnapshotter {
     private static final EnumSet<FileVisitOption> DONT_FOLLOW_SYMLINKS = EnumSet.noneOf(FileVisitOption.class);
+    /**
+     * Subdirectories are walked by the current thread instead of being forked when the current worker has more queued tasks than this.
+     */
+    private static final int MAX_SURPLUS_QUEUED_SUBTREES = 2;
     private static final SymbolicLinkMapping EMPTY_SYMBOLIC_LINK_MAPPING = new SymbolicLinkMapping() {
 
         @Override
@@ -89,12 +99,22 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    @Nullable
+    private final ForkJoinPool forkJoinPool;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, null);
+    }
+
+    /**
+     * Creates a snapshotter walking unfiltered directories in the given pool, or on the calling thread when there is none.
+     */
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector, @Nullable ForkJoinPool forkJoinPool) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.forkJoinPool = forkJoinPool;
     }
 
     /**
@@ -122,8 +142,15 @@ public FileSystemLocationSnapshot snapshot(
         try {
             AtomicBoolean hasBeenFiltered = new AtomicBoolean();
             Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder);
-            Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
+            // Filtered walks report unfiltered snapshots while walking, so they are always done by the current thread
+            boolean forkSubtrees = forkJoinPool != null && predicate == null;
+            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder, forkSubtrees);
+            if (forkSubtrees && ForkJoinTask.getPool() != forkJoinPool) {
+                // The calling thread waits while the walk happens in the pool, so that the subtrees are forked into the pool as well
+                forkJoinPool.invoke(new SubtreeTask(rootPath, visitor));
+            } else {
+                Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
+            }
             FileSystemLocationSnapshot result = visitor.getResult();
             if (!hasBeenFiltered.get()) {
                 unfilteredSnapshotRecorder.accept(result);
@@ -180,8 +207,10 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
         }
     }
 
-    @VisibleForTesting
-    static class DefaultExcludes {
+    /**
+     * The names of files and directories which are left out of directory snapshots.
+     */
+    public static class DefaultExcludes {
         private final ImmutableSet<String> excludeFileNames;
         private final ImmutableSet<String> excludedDirNames;
         private final Predicate<String> excludedFileNameSpec;
@@ -255,6 +284,8 @@ public boolean test(String element) {
 
     private static class PathVisitor extends DirectorySnapshotterStatistics.CollectingFileVisitor {
         private final RelativePathTracker pathTracker = new RelativePathTracker();
+        private final boolean forkSubtrees;
+        private final Deque<List<ForkJoinTask<FileSystemLocationSnapshot>>> forkedSubtrees = new ArrayDeque<>();
         private final FilteredTrackingMerkleDirectorySnapshotBuilder builder;
         private final SnapshottingFilter.DirectoryWalkerPredicate predicate;
         private final AtomicBoolean hasBeenFiltered;
@@ -262,7 +293,7 @@ private static class PathVisitor extends DirectorySnapshotterStatistics.Collecti
         private final Interner<String> stringInterner;
         private final DefaultExcludes defaultExcludes;
         private final SymbolicLinkMapping symbolicLinkMapping;
-        private final Deque<String> parentDirectories = new ArrayDeque<>();
+        private final Deque<String> parentDirectories;
         private final Set<FileSystemLocationSnapshot> filteredDirectorySnapshots = new HashSet<>();
         private final ImmutableMap<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots;
         private final Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder;
@@ -276,9 +307,29 @@ public PathVisitor(
             DirectorySnapshotterStatistics.Collector statisticsCollector,
             SymbolicLinkMapping symbolicLinkMapping,
             Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
-            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder
+            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder,
+            boolean forkSubtrees
         ) {
-            super(statisticsCollector);
+            this(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, statisticsCollector, symbolicLinkMapping, previouslyKnownSnapshots, unfilteredSnapshotRecorder, forkSubtrees, new ArrayDeque<>(), false);
+        }
+
+        private PathVisitor(
+            @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
+            AtomicBoolean hasBeenFiltered,
+            FileHasher hasher,
+            Interner<String> stringInterner,
+            DefaultExcludes defaultExcludes,
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            SymbolicLinkMapping symbolicLinkMapping,
+            Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
+            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder,
+            boolean forkSubtrees,
+            Deque<String> parentDirectories,
+            boolean subtree
+        ) {
+            super(statisticsCollector, subtree);
+            this.forkSubtrees = forkSubtrees;
+            this.parentDirectories = parentDirectories;
             this.builder = FilteredTrackingMerkleDirectorySnapshotBuilder.sortingRequired(this::recordUnfilteredSnapshot);
             this.predicate = predicate;
             this.hasBeenFiltered = hasBeenFiltered;
@@ -315,8 +366,17 @@ protected FileVisitResult doPreVisitDirectory(Path dir, BasicFileAttributes attr
                     }
                 }
 
+                if (forkSubtrees && !pathTracker.isRoot() && shouldForkSubtree()) {
+                    forkedSubtrees.getFirst().add(new SubtreeTask(dir, subtreeVisitor()).fork());
+                    pathTracker.leave();
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
                 builder.enterDirectory(AccessType.DIRECT, internedRemappedAbsolutePath, fileName, INCLUDE_EMPTY_DIRS);
                 parentDirectories.addFirst(dir.toString());
+                if (forkSubtrees) {
+                    forkedSubtrees.addFirst(new ArrayList<>());
+                }
                 return FileVisitResult.CONTINUE;
             } else {
                 pathTracker.leave();
@@ -333,6 +393,11 @@ protected FileVisitResult doPostVisitDirectory(Path dir, IOException exc) {
             if (isNotFileSystemLoopException(exc)) {
                 throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), exc);
             }
+            if (forkSubtrees) {
+                for (ForkJoinTask<FileSystemLocationSnapshot> forkedSubtree : forkedSubtrees.removeFirst()) {
+                    builder.visitDirectory((DirectorySnapshot) forkedSubtree.join());
+                }
+            }
             boolean currentLevelComplete = builder.isCurrentLevelUnfiltered();
             FileSystemLocationSnapshot currentLevel = builder.leaveDirectory();
             if (!currentLevelComplete) {
@@ -395,7 +460,8 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
                         collector,
                         symbolicLinkMapping.withNewMapping(file.toString(), targetDirString, pathTracker),
                         previouslyKnownSnapshots,
-                        unfilteredSnapshotRecorder);
+                        unfilteredSnapshotRecorder,
+                        forkSubtrees);
                     Files.walkFileTree(targetDir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, subtreeVisitor);
                     return (DirectorySnapshot) subtreeVisitor.getResult();
                 } else {
@@ -406,6 +472,33 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
             }
         }
 
+        /**
+         * Forks only as long as there are not enough tasks queued for idle workers to steal already.
+         */
+        private static boolean shouldForkSubtree() {
+            return ForkJoinTask.getSurplusQueuedTaskCount() <= MAX_SURPLUS_QUEUED_SUBTREES;
+        }
+
+        /**
+         * Creates a visitor for walking a subdirectory of the current directory on its own.
+         * The subdirectory has already been visited by this visitor and is therefore not recorded as a separate hierarchy.
+         */
+        private PathVisitor subtreeVisitor() {
+            return new PathVisitor(
+                predicate,
+                hasBeenFiltered,
+                hasher,
+                stringInterner,
+                defaultExcludes,
+                collector,
+                symbolicLinkMapping,
+                previouslyKnownSnapshots,
+                unfilteredSnapshotRecorder,
+                true,
+                new ArrayDeque<>(parentDirectories),
+                true);
+        }
+
         private boolean introducesCycle(String targetDirString) {
             return parentDirectories.contains(targetDirString);
         }
@@ -521,4 +614,24 @@ public FileSystemLocationSnapshot getResult() {
             return builder.getResult();
         }
     }
+
+    private static class SubtreeTask extends RecursiveTask<FileSystemLocationSnapshot> {
+        private final Path dir;
+        private final PathVisitor visitor;
+
+        public SubtreeTask(Path dir, PathVisitor visitor) {
+            this.dir = dir;
+            this.visitor = visitor;
+        }
+
+        @Override
+        protected FileSystemLocationSnapshot compute() {
+            try {
+                Files.walkFileTree(dir, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
+                return visitor.getResult();
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not list contents of directory '%s'.", dir), e);
+            }
+        }
+    }
 }
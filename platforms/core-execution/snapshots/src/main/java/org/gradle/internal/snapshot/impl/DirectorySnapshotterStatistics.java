@@ -105,15 +105,30 @@ public String toString() {
 
     abstract class CollectingFileVisitor implements FileVisitor<Path> {
         protected final Collector collector;
+        private boolean skipRecordingRootDirectory;
 
         public CollectingFileVisitor(Collector collector) {
+            this(collector, false);
+        }
+
+        /**
+         * @param subtree whether this visitor walks a subtree of a hierarchy whose root directory has already been recorded by another visitor.
+         */
+        protected CollectingFileVisitor(Collector collector, boolean subtree) {
             this.collector = collector;
-            collector.recordVisitHierarchy();
+            this.skipRecordingRootDirectory = subtree;
+            if (!subtree) {
+                collector.recordVisitHierarchy();
+            }
         }
 
         @Override
         public final FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-            collector.recordVisitDirectory();
+            if (skipRecordingRootDirectory) {
+                skipRecordingRootDirectory = false;
+            } else {
+                collector.recordVisitDirectory();
+            }
             return doPreVisitDirectory(dir, attrs);
         }
 
@@ -24,9 +24,14 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
@@ -34,23 +39,42 @@
 public abstract class AbstractVirtualFileSystem implements VirtualFileSystem {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractVirtualFileSystem.class);
 
-    private final ReentrantLock updateLock = new ReentrantLock();
+    private static final AtomicReferenceFieldUpdater<AbstractVirtualFileSystem, SnapshotHierarchy> ROOT_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(AbstractVirtualFileSystem.class, SnapshotHierarchy.class, "root");
+
+    /**
+     * The write lock guards all updates which change the versions or can't be done concurrently.
+     * Stores which can be done concurrently only hold the read lock, and then swap the root atomically.
+     */
+    private final ReentrantReadWriteLock updateLock = new ReentrantReadWriteLock();
+
+    /**
+     * Concurrent updates whose listeners have not been notified yet, keyed by the root they have been applied to.
+     * Following the chain from {@link #publishedRoot} gives the updates in the order in which they have been applied.
+     */
+    private final Map<SnapshotHierarchy, ConcurrentUpdate> unpublishedUpdates = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final ReentrantLock publicationLock = new ReentrantLock();
 
     // Mutable state, changes need to be guarded by updateLock
     protected volatile SnapshotHierarchy root;
     private volatile VersionHierarchyRoot versionHierarchyRoot;
+    // The root the listeners have last been notified about, guarded by updateLock and publicationLock
+    private volatile SnapshotHierarchy publishedRoot;
 
     protected AbstractVirtualFileSystem(SnapshotHierarchy root) {
         this.root = root;
+        this.publishedRoot = root;
         this.versionHierarchyRoot = VersionHierarchyRoot.empty(0, root.getCaseSensitivity());
     }
 
     protected void underLock(Runnable runnable) {
-        updateLock.lock();
+        updateLock.writeLock().lock();
         try {
             runnable.run();
         } finally {
-            updateLock.unlock();
+            // All concurrent updates have been published before the write lock could be acquired, so the next ones follow the current root
+            publishedRoot = root;
+            updateLock.writeLock().unlock();
         }
     }
 
@@ -94,14 +118,69 @@ public <T> T store(String baseLocation, StoringAction<T> storingAction) {
     }
 
     private void storeIfUnchanged(String absolutePath, long versionBefore, FileSystemLocationSnapshot snapshot) {
+        updateLock.readLock().lock();
+        try {
+            if (canUpdateConcurrently()) {
+                if (isUnchangedSince(absolutePath, versionBefore)) {
+                    storeConcurrently(absolutePath, snapshot);
+                }
+                return;
+            }
+        } finally {
+            updateLock.readLock().unlock();
+        }
+        if (isUnchangedSince(absolutePath, versionBefore)) {
+            updateRootUnderLock(root -> updateNotifyingListeners(diffListener -> root.store(absolutePath, snapshot, diffListener)));
+        }
+    }
+
+    private void storeConcurrently(String absolutePath, FileSystemLocationSnapshot snapshot) {
+        while (true) {
+            SnapshotHierarchy currentRoot = root;
+            // The update may be applied more than once when racing with other stores, which is fine since the hierarchy is immutable
+            ConcurrentUpdate update = updateConcurrently(diffListener -> currentRoot.store(absolutePath, snapshot, diffListener));
+            if (update.getNewRoot() == currentRoot) {
+                return;
+            }
+            if (ROOT_UPDATER.compareAndSet(this, currentRoot, update.getNewRoot())) {
+                if (update.publication != null) {
+                    unpublishedUpdates.put(currentRoot, update);
+                    publishUpdates();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Notifies the listeners about the concurrent updates which can be published in order.
+     *
+     * A thread which finds another thread publishing leaves its update to that thread, which checks for more updates after it is done.
+     * The write lock can only be acquired once all threads are done, so no update is left unpublished by then.
+     */
+    private void publishUpdates() {
+        while (unpublishedUpdates.containsKey(publishedRoot) && publicationLock.tryLock()) {
+            try {
+                ConcurrentUpdate update;
+                while ((update = unpublishedUpdates.remove(publishedRoot)) != null) {
+                    publishedRoot = update.getNewRoot();
+                    update.publication.run();
+                }
+            } finally {
+                publicationLock.unlock();
+            }
+        }
+    }
+
+    private boolean isUnchangedSince(String absolutePath, long versionBefore) {
         long versionAfter = versionHierarchyRoot.getVersion(absolutePath);
         // Only update VFS if no changes happened in between
         // The version in sub-locations may be smaller than the version we queried at the root when using a `StoringAction`.
         if (versionBefore >= versionAfter) {
-            updateRootUnderLock(root -> updateNotifyingListeners(diffListener -> root.store(absolutePath, snapshot, diffListener)));
-        } else {
-            LOGGER.debug("Changes to the virtual file system happened while snapshotting '{}', not storing resulting snapshot", absolutePath);
+            return true;
         }
+        LOGGER.debug("Changes to the virtual file system happened while snapshotting '{}', not storing resulting snapshot", absolutePath);
+        return false;
     }
 
     @Override
@@ -126,11 +205,48 @@ public void invalidateAll() {
         invalidate(Collections.singletonList(VfsRelativePath.ROOT));
     }
 
+    /**
+     * Whether snapshots can currently be stored without holding the update lock, in which case they are stored via {@link #updateConcurrently(UpdateFunction)}.
+     *
+     * Called while holding the read lock, so the answer can't change until the store is done.
+     */
+    protected boolean canUpdateConcurrently() {
+        return false;
+    }
+
+    /**
+     * Runs a single update on a {@link SnapshotHierarchy} which is applied concurrently with other updates.
+     *
+     * The update only notifies the currently active listeners when it is published, which happens after the listeners have been notified about all updates applied before it.
+     * Called while holding the read lock.
+     */
+    protected ConcurrentUpdate updateConcurrently(UpdateFunction updateFunction) {
+        return new ConcurrentUpdate(updateFunction.update(SnapshotHierarchy.NodeDiffListener.NOOP), null);
+    }
+
     /**
      * Runs a single update on a {@link SnapshotHierarchy} and notifies the currently active listeners after the update.
      */
     protected abstract SnapshotHierarchy updateNotifyingListeners(UpdateFunction updateFunction);
 
+    protected static class ConcurrentUpdate {
+        private final SnapshotHierarchy newRoot;
+        private final Runnable publication;
+
+        /**
+         * @param publication notifies the listeners about the update without throwing, or null if there are no listeners
+         */
+        public ConcurrentUpdate(SnapshotHierarchy newRoot, @Nullable Runnable publication) {
+            this.newRoot = newRoot;
+            this.publication = publication;
+        }
+
+        public SnapshotHierarchy getNewRoot() {
+            return newRoot;
+        }
+
+    }
+
     public interface UpdateFunction {
         /**
          * Runs a single update on a {@link SnapshotHierarchy}, notifying the diffListener about changes.
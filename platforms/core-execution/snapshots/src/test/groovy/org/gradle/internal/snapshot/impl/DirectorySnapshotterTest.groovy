@@ -42,6 +42,7 @@ import spock.lang.Issue
 import spock.lang.Specification
 
 import java.nio.file.Paths
+import java.util.concurrent.ForkJoinPool
 import java.util.function.Consumer
 
 @UsesNativeServices
@@ -53,11 +54,16 @@ class DirectorySnapshotterTest extends Specification {
     def fileHasher = new TestFileHasher()
     def statisticsCollector = Stub(DirectorySnapshotterStatistics.Collector)
     def directorySnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector)
+    def forkJoinPool = new ForkJoinPool(4)
     List<FileSystemLocationSnapshot> unfilteredSubsnapshots = []
     Consumer<FileSystemLocationSnapshot> unfilteredSubSnapshotsCollector = { FileSystemLocationSnapshot snapshot ->
         unfilteredSubsnapshots.add(snapshot)
     }
 
+    def cleanup() {
+        forkJoinPool.shutdown()
+    }
+
     def "should snapshot without filters"() {
         given:
         def rootDir = tmpDir.createDir("root")
@@ -102,6 +108,45 @@ class DirectorySnapshotterTest extends Specification {
         ] as Set
     }
 
+    def "parallel snapshotting produces the same snapshot"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.file("a.txt").text = "a"
+        (1..5).each { i ->
+            (1..5).each { j ->
+                rootDir.file("dir${i}/sub${j}/file.txt").text = "${i}-${j}"
+                rootDir.file("dir${i}/sub${j}/nested/other.txt").text = "${j}-${i}"
+            }
+        }
+        rootDir.file("dir1/empty").createDir()
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector, forkJoinPool)
+
+        when:
+        def snapshot = directorySnapshotter.snapshot(rootDir.absolutePath, null, [:], {})
+        def parallelSnapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, null, [:], unfilteredSubSnapshotsCollector)
+
+        then:
+        unfilteredSubsnapshots == [parallelSnapshot]
+        parallelSnapshot.hash == snapshot.hash
+        SnapshotVisitorUtil.getAbsolutePaths(parallelSnapshot, true) == SnapshotVisitorUtil.getAbsolutePaths(snapshot, true)
+    }
+
+    def "parallel snapshotting detects cycles introduced via symlinks"() {
+        def rootDir = tmpDir.createDir("root")
+        def dir = rootDir.file("dir").createDir()
+        dir.file('subdir').createLink(dir)
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), [], statisticsCollector, forkJoinPool)
+
+        when:
+        def snapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, null, [:], unfilteredSubSnapshotsCollector)
+
+        then:
+        snapshot.children.size() == 1
+        def dirSnapshot = snapshot.children[0]
+        dirSnapshot.class == DirectorySnapshot
+        dirSnapshot.children == []
+    }
+
     def "should snapshot file system root"() {
         given:
         def fileSystemRoot = fileSystemRoot()
@@ -121,4 +121,70 @@ class AbstractVirtualFileSystemTest extends ConcurrentSpec implements TestSnapsh
         then:
         vfs.findSnapshot(location).present
     }
+
+    def "keeps all snapshots stored concurrently without holding the update lock"() {
+        def concurrentVfs = new AbstractVirtualFileSystem(DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE)) {
+            @Override
+            protected SnapshotHierarchy updateNotifyingListeners(AbstractVirtualFileSystem.UpdateFunction updateFunction) {
+                return updateFunction.update(SnapshotHierarchy.NodeDiffListener.NOOP)
+            }
+
+            @Override
+            protected boolean canUpdateConcurrently() {
+                return true
+            }
+        }
+        def locations = (1..8).collectMany { thread -> (1..50).collect { "/my/location/${thread}/file${it}".toString() } }
+
+        when:
+        async {
+            locations.groupBy { it.split('/')[3] }.values().each { threadLocations ->
+                start {
+                    threadLocations.each { location ->
+                        concurrentVfs.store(location, { -> regularFile(location) } as Supplier<FileSystemLocationSnapshot>)
+                    }
+                }
+            }
+        }
+
+        then:
+        locations.every { concurrentVfs.findSnapshot(it).present }
+    }
+
+    def "notifies listeners about concurrently stored snapshots in the order they were applied"() {
+        def publishedRoots = Collections.synchronizedList([])
+        def concurrentVfs = new AbstractVirtualFileSystem(DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE)) {
+            @Override
+            protected SnapshotHierarchy updateNotifyingListeners(AbstractVirtualFileSystem.UpdateFunction updateFunction) {
+                return updateFunction.update(SnapshotHierarchy.NodeDiffListener.NOOP)
+            }
+
+            @Override
+            protected boolean canUpdateConcurrently() {
+                return true
+            }
+
+            @Override
+            protected AbstractVirtualFileSystem.ConcurrentUpdate updateConcurrently(AbstractVirtualFileSystem.UpdateFunction updateFunction) {
+                def newRoot = updateFunction.update(SnapshotHierarchy.NodeDiffListener.NOOP)
+                return new AbstractVirtualFileSystem.ConcurrentUpdate(newRoot, { publishedRoots << newRoot } as Runnable)
+            }
+        }
+        def locations = (1..8).collectMany { thread -> (1..50).collect { "/my/location/${thread}/file${it}".toString() } }
+
+        when:
+        async {
+            locations.groupBy { it.split('/')[3] }.values().each { threadLocations ->
+                start {
+                    threadLocations.each { location ->
+                        concurrentVfs.store(location, { -> regularFile(location) } as Supplier<FileSystemLocationSnapshot>)
+                    }
+                }
+            }
+        }
+
+        then:
+        publishedRoots.collect { it.rootSnapshots().count() } == (1L..locations.size())
+        publishedRoots.last().is(concurrentVfs.root)
+    }
 }
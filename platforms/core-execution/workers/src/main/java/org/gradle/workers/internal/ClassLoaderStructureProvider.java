@@ -26,7 +26,6 @@
 import java.io.File;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -63,7 +62,8 @@ public VisitableURLClassLoader.Spec getUserSpec(String name, Iterable<File> addi
         Set<URL> classpath = new LinkedHashSet<>();
         classpath.addAll(DefaultClassPath.of(additionalClasspath).getAsURLs());
 
-        Set<ClassLoader> uniqueClassloaders = new HashSet<>();
+        // Collect in a stable order, so that equivalent requirements produce the same classpath and can share a worker daemon
+        Set<ClassLoader> uniqueClassloaders = new LinkedHashSet<>();
         for (Class<?> clazz : classes) {
             ClassLoader classLoader = clazz.getClassLoader();
             // System types come from the system classloader and their classloader is null.
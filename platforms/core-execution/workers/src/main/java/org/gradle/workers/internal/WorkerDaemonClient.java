@@ -19,6 +19,7 @@
 import org.gradle.api.logging.LogLevel;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.process.internal.health.memory.JvmMemoryStatus;
+import org.gradle.process.internal.health.memory.MemoryAmount;
 import org.gradle.process.internal.worker.MultiRequestClient;
 import org.gradle.process.internal.worker.WorkerProcess;
 
@@ -30,6 +31,7 @@ class WorkerDaemonClient implements Stoppable {
     private final LogLevel logLevel;
     private final ActionExecutionSpecFactory actionExecutionSpecFactory;
     private int uses;
+    private int lastUsedInSession;
     private boolean failed;
     private boolean cannotBeExpired = Boolean.getBoolean(DISABLE_EXPIRATION_PROPERTY_KEY);
 
@@ -67,6 +69,25 @@ public int getUses() {
         return uses;
     }
 
+    /**
+     * The number of the build session in which this client was last released after use.
+     */
+    public int getLastUsedInSession() {
+        return lastUsedInSession;
+    }
+
+    public void setLastUsedInSession(int lastUsedInSession) {
+        this.lastUsedInSession = lastUsedInSession;
+    }
+
+    /**
+     * The maximum heap size of the daemon, or {@link Long#MAX_VALUE} when it uses the default of the JVM.
+     */
+    public long getMaxHeapSize() {
+        long maxHeapSize = MemoryAmount.parseNotation(forkOptions.getJavaForkOptions().getMaxHeapSize());
+        return maxHeapSize == -1 ? Long.MAX_VALUE : maxHeapSize;
+    }
+
     public KeepAliveMode getKeepAliveMode() {
         return forkOptions.getKeepAliveMode();
     }
@@ -59,6 +59,7 @@ public class WorkerDaemonClientsManager implements Stoppable {
     private final WorkerDaemonExpiration workerDaemonExpiration;
     private final MemoryManager memoryManager;
     private volatile LogLevel currentLogLevel;
+    private int sessionCount;
 
     public WorkerDaemonClientsManager(WorkerDaemonStarter workerDaemonStarter, ListenerManager listenerManager, LoggingManagerInternal loggingManager, MemoryManager memoryManager, OsMemoryInfo memoryInfo) {
         this.workerDaemonStarter = workerDaemonStarter;
@@ -80,23 +81,30 @@ public WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
         return reserveIdleClient(forkOptions, idleClients);
     }
 
+    /**
+     * Reserves the compatible idle client with the smallest heap, which leaves the larger daemons to the work that can only run in them.
+     */
     WorkerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<WorkerDaemonClient> clients) {
         synchronized (lock) {
+            WorkerDaemonClient bestFit = null;
             Iterator<WorkerDaemonClient> it = clients.iterator();
             while (it.hasNext()) {
                 WorkerDaemonClient candidate = it.next();
                 if (candidate.isCompatibleWith(forkOptions)) {
-                    it.remove();
                     if (candidate.getLogLevel() != currentLogLevel) {
                         // TODO: Send a message to workers to change their log level rather than stopping
                         LOGGER.info("Log level has changed, stopping idle worker daemon with out-of-date log level.");
+                        it.remove();
                         candidate.stop();
-                    } else {
-                        return candidate;
+                    } else if (bestFit == null || candidate.getMaxHeapSize() < bestFit.getMaxHeapSize()) {
+                        bestFit = candidate;
                     }
                 }
             }
-            return null;
+            if (bestFit != null) {
+                clients.remove(bestFit);
+            }
+            return bestFit;
         }
     }
 
@@ -112,6 +120,7 @@ public WorkerDaemonClient reserveNewClient(DaemonForkOptions forkOptions) {
     public void release(WorkerDaemonClient client) {
         synchronized (lock) {
             if (!client.isFailed()) {
+                client.setLastUsedInSession(sessionCount);
                 idleClients.add(client);
             }
         }
@@ -141,11 +150,14 @@ private long getTotalPhysicalMemory() {
     /**
      * Select idle daemon clients to stop.
      *
+     * The clients are offered starting with those that were last used in the oldest build session, so that the daemons used by recent builds are kept warm for as long as possible.
+     * Among the clients last used in the same session, the less frequently used ones come first.
+     *
      * @param selectionFunction Gets all idle daemon clients, daemons of returned clients are stopped
      */
     public void selectIdleClientsToStop(Transformer<List<WorkerDaemonClient>, List<WorkerDaemonClient>> selectionFunction) {
         synchronized (lock) {
-            List<WorkerDaemonClient> sortedClients = CollectionUtils.sort(idleClients, comparingInt(WorkerDaemonClient::getUses));
+            List<WorkerDaemonClient> sortedClients = CollectionUtils.sort(idleClients, comparingInt(WorkerDaemonClient::getLastUsedInSession).thenComparingInt(WorkerDaemonClient::getUses));
             List<WorkerDaemonClient> clientsToStop = selectionFunction.transform(new ArrayList<>(sortedClients));
             if (!clientsToStop.isEmpty()) {
                 stopWorkers(clientsToStop);
@@ -183,6 +195,7 @@ private class StopSessionScopedWorkers implements BuildSessionLifecycleListener
         @Override
         public void beforeComplete() {
             synchronized (lock) {
+                sessionCount++;
                 List<WorkerDaemonClient> sessionScopedClients = CollectionUtils.filter(allClients, client -> client.getKeepAliveMode() == KeepAliveMode.SESSION);
                 stopWorkers(sessionScopedClients);
             }
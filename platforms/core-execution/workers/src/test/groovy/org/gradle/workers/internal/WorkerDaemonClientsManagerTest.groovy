@@ -29,6 +29,8 @@ import org.gradle.internal.service.scopes.Scopes
 import org.gradle.process.internal.ExecException
 import org.gradle.process.internal.health.memory.MBeanOsMemoryInfo
 import org.gradle.process.internal.health.memory.MemoryManager
+import org.gradle.process.internal.worker.MultiRequestClient
+import org.gradle.process.internal.worker.WorkerProcess
 import org.gradle.util.ConcurrentSpecification
 import spock.lang.Subject
 
@@ -66,6 +68,17 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         input == [noMatch] //match removed from input
     }
 
+    def "reserves compatible idle client with smallest heap"() {
+        def large = Stub(WorkerDaemonClient) { isCompatibleWith(_) >> true; getMaxHeapSize() >> 2048 }
+        def small = Stub(WorkerDaemonClient) { isCompatibleWith(_) >> true; getMaxHeapSize() >> 512 }
+        def noMatch = Stub(WorkerDaemonClient) { isCompatibleWith(_) >> false; getMaxHeapSize() >> 256 }
+        def input = [large, small, noMatch]
+
+        expect:
+        manager.reserveIdleClient(options, input) == small
+        input == [large, noMatch]
+    }
+
     def "reserves new client"() {
         def newClient = Stub(WorkerDaemonClient)
         starter.startDaemon(options, _) >> newClient
@@ -266,6 +279,38 @@ class WorkerDaemonClientsManagerTest extends ConcurrentSpecification {
         0 * client1.stop()
     }
 
+    def "prefers to stop clients not used in recent build sessions when releasing memory"() {
+        listenerManager = new DefaultListenerManager(Scopes.BuildSession)
+        manager = new WorkerDaemonClientsManager(starter, listenerManager, loggingManager, memoryManager, new MBeanOsMemoryInfo())
+        def daemonScoped = Stub(DaemonForkOptions) { getKeepAliveMode() >> KeepAliveMode.DAEMON }
+        def oldProcess = Mock(MultiRequestClient)
+        def recentProcess = Mock(MultiRequestClient)
+        def oldClient = new WorkerDaemonClient(daemonScoped, oldProcess, Stub(WorkerProcess), LogLevel.INFO, Stub(ActionExecutionSpecFactory))
+        def recentClient = new WorkerDaemonClient(daemonScoped, recentProcess, Stub(WorkerProcess), LogLevel.INFO, Stub(ActionExecutionSpecFactory))
+        starter.startDaemon(options, _) >>> [oldClient, recentClient]
+        def stopMostPreferredClient = new Transformer<List<WorkerDaemonClient>, List<WorkerDaemonClient>>() {
+            @Override
+            List<WorkerDaemonClient> transform(List<WorkerDaemonClient> workerDaemonClients) {
+                return workerDaemonClients[0..0]
+            }
+        }
+
+        when:
+        2.times { manager.reserveNewClient(options) }
+        3.times { oldClient.execute(Stub(IsolatedParametersActionExecutionSpec)) }
+        manager.release(oldClient)
+        listenerManager.getBroadcaster(BuildSessionLifecycleListener).beforeComplete()
+        recentClient.execute(Stub(IsolatedParametersActionExecutionSpec))
+        manager.release(recentClient)
+        manager.selectIdleClientsToStop(stopMostPreferredClient)
+
+        then:
+        oldClient.lastUsedInSession == 0
+        recentClient.lastUsedInSession == 1
+        1 * oldProcess.stop()
+        0 * recentProcess.stop()
+    }
+
     def "does not stop busy clients when releasing memory"() {
         def client1 = Mock(WorkerDaemonClient) { _ * getUses() >> 5 }
         def client2 = Mock(WorkerDaemonClient) { _ * getUses() >> 1 }
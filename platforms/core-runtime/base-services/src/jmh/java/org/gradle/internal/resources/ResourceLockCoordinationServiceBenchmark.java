@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resources;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.tryLock;
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock;
+
+/**
+ * Measures the throughput of lock state changes on unrelated resources, each thread locking and unlocking its own resource,
+ * with and without other threads querying the lock state at the same time.
+ */
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ResourceLockCoordinationServiceBenchmark {
+
+    private final DefaultResourceLockCoordinationService coordinationService = new DefaultResourceLockCoordinationService();
+
+    @State(Scope.Thread)
+    public static class ThreadResource {
+        ExclusiveAccessResourceLock lock;
+
+        @Setup
+        public void setup(ResourceLockCoordinationServiceBenchmark benchmark) {
+            lock = new ExclusiveAccessResourceLock(Thread.currentThread().getName(), benchmark.coordinationService, new ResourceLockContainer() {
+                @Override
+                public void lockAcquired(ResourceLock lock) {
+                }
+
+                @Override
+                public void lockReleased(ResourceLock lock) {
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public void lockAndUnlock(ThreadResource resource, Blackhole bh) {
+        bh.consume(coordinationService.withStateLock(tryLock(resource.lock)));
+        bh.consume(coordinationService.withStateLock(unlock(resource.lock)));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public void lockAndUnlockWhileQueried(ThreadResource resource, Blackhole bh) {
+        lockAndUnlock(resource, bh);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public void queryLockState(Blackhole bh) {
+        bh.consume(coordinationService.getCurrent());
+    }
+}
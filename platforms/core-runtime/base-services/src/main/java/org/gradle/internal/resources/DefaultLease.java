@@ -25,6 +25,13 @@ public DefaultLease(String displayName, ResourceLockCoordinationService coordina
         this.parent = parent;
     }
 
+    /**
+     * Returns the holder granting this lease, which is shared by all leases for the same resource.
+     */
+    public LeaseHolder getLeaseHolder() {
+        return parent;
+    }
+
     @Override
     protected boolean doIsLocked() {
         return ownerThread != null;
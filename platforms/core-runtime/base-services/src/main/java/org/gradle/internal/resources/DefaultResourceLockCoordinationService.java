@@ -29,45 +29,45 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
+/**
+ * Coordinates changes to resource lock state using a single state lock.
+ *
+ * <p>Only the changes to lock state are serialized. Querying whether the current thread holds the state lock and
+ * registering lock release listeners do not need to acquire the state lock, so threads that are not changing lock
+ * state do not contend with the threads that are.</p>
+ */
 public class DefaultResourceLockCoordinationService implements ResourceLockCoordinationService, Closeable {
     private final Object lock = new Object();
-    private final Set<Action<ResourceLock>> releaseHandlers = new LinkedHashSet<Action<ResourceLock>>();
-    private Thread currentOwner;
+    private final Set<Action<ResourceLock>> releaseHandlers = new CopyOnWriteArraySet<Action<ResourceLock>>();
+    // Only written by the thread holding the state lock, but read without holding it
+    private volatile Thread currentOwner;
     private DefaultResourceLockState currentState;
 
     @Override
     public void close() throws IOException {
-        synchronized (lock) {
-            if (!releaseHandlers.isEmpty()) {
-                throw new IllegalStateException("Some lock release listeners have not been removed.");
-            }
+        if (!releaseHandlers.isEmpty()) {
+            throw new IllegalStateException("Some lock release listeners have not been removed.");
         }
     }
 
     @Override
     public void assertHasStateLock() {
-        synchronized (lock) {
-            if (getCurrent() == null) {
-                throw new IllegalStateException();
-            }
+        if (getCurrent() == null) {
+            throw new IllegalStateException();
         }
     }
 
     @Override
     public void addLockReleaseListener(Action<ResourceLock> listener) {
-        synchronized (lock) {
-            releaseHandlers.add(listener);
-        }
+        releaseHandlers.add(listener);
     }
 
     @Override
     public void removeLockReleaseListener(Action<ResourceLock> listener) {
-        synchronized (lock) {
-            releaseHandlers.remove(listener);
-        }
+        releaseHandlers.remove(listener);
     }
 
     @Override
@@ -96,8 +96,8 @@ public ResourceLockState.Disposition transform(ResourceLockState resourceLockSta
 
     @Override
     public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition, ResourceLockState> stateLockAction) {
+        DefaultResourceLockState resourceLockState = new DefaultResourceLockState();
         synchronized (lock) {
-            DefaultResourceLockState resourceLockState = new DefaultResourceLockState();
             DefaultResourceLockState previous = startOperation(resourceLockState);
             try {
                 while (true) {
@@ -158,12 +158,12 @@ private void finishOperation(@Nullable DefaultResourceLockState previous) {
 
     @Override
     public ResourceLockState getCurrent() {
-        synchronized (lock) {
-            if (currentOwner != Thread.currentThread()) {
-                return null;
-            } else {
-                return currentState;
-            }
+        // When the owner is the current thread, then the current thread holds the state lock and the state can be read safely.
+        // Otherwise, the owner is never the current thread, regardless of which other thread is changing it.
+        if (currentOwner != Thread.currentThread()) {
+            return null;
+        } else {
+            return currentState;
         }
     }
 
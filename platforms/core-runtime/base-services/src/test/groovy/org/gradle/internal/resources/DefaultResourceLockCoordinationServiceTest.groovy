@@ -177,6 +177,31 @@ class DefaultResourceLockCoordinationServiceTest extends ConcurrentSpec {
         noExceptionThrown()
     }
 
+    def "can query the current resource lock state while another thread holds the state lock"() {
+        when:
+        async {
+            start {
+                coordinationService.withStateLock({
+                    instant.locked
+                    thread.blockUntil.queried
+                } as Runnable)
+            }
+
+            thread.blockUntil.locked
+            assert coordinationService.getCurrent() == null
+            try {
+                coordinationService.assertHasStateLock()
+                assert false
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            instant.queried
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
     def "locks are rolled back when an exception is thrown"() {
         def lock1 = resourceLock("lock1", false)
         def lock2 = resourceLock("lock2", false)
@@ -20,6 +20,7 @@
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.initialization.ClassLoaderRegistry;
 import org.gradle.internal.agents.AgentInitializer;
 import org.gradle.internal.classpath.DefaultClassPath;
 import org.gradle.internal.concurrent.CompositeStoppable;
@@ -38,11 +39,13 @@
 import org.gradle.launcher.daemon.configuration.DefaultDaemonServerConfiguration;
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.logging.DaemonMessages;
+import org.gradle.launcher.daemon.registry.DaemonDir;
 import org.gradle.launcher.daemon.server.Daemon;
 import org.gradle.launcher.daemon.server.DaemonServices;
 import org.gradle.launcher.daemon.server.MasterExpirationStrategy;
 import org.gradle.launcher.daemon.server.expiry.DaemonExpirationStrategy;
 import org.gradle.process.internal.shutdown.ShutdownHooks;
+import org.gradle.util.internal.GFileUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.EOFException;
@@ -78,6 +81,7 @@ protected void doAction(String[] args, ExecutionListener listener) {
         int idleTimeoutMs;
         int periodicCheckIntervalMs;
         boolean singleUse;
+        boolean spare;
         String daemonUid;
         DaemonParameters.Priority priority;
         List<File> additionalClassPath;
@@ -89,6 +93,7 @@ protected void doAction(String[] args, ExecutionListener listener) {
             idleTimeoutMs = decoder.readSmallInt();
             periodicCheckIntervalMs = decoder.readSmallInt();
             singleUse = decoder.readBoolean();
+            spare = decoder.readBoolean();
             daemonUid = decoder.readString();
             priority = DaemonParameters.Priority.values()[decoder.readSmallInt()];
             int argCount = decoder.readSmallInt();
@@ -131,6 +136,12 @@ protected void doAction(String[] args, ExecutionListener listener) {
             DaemonContext daemonContext = daemonServices.get(DaemonContext.class);
             Long pid = daemonContext.getPid();
             daemonStarted(pid, daemon.getUid(), daemon.getAddress(), daemonLog);
+            if (spare) {
+                warmUp(daemonServices, gradleHomeDir);
+                daemon.advertiseIdle();
+                // From now on, clients find this daemon through the registry
+                GFileUtils.deleteQuietly(daemonServices.get(DaemonDir.class).getStartingSpareDaemonMarker(daemonUid));
+            }
             DaemonExpirationStrategy expirationStrategy = daemonServices.get(MasterExpirationStrategy.class);
             daemon.stopOnExpiration(expirationStrategy, parameters.getPeriodicCheckIntervalMs());
         } finally {
@@ -140,6 +151,21 @@ protected void doAction(String[] args, ExecutionListener listener) {
         }
     }
 
+    /**
+     * Does the work that the first build in a daemon would otherwise do, so that a spare daemon is ready to run a build as soon as it advertises itself as idle.
+     */
+    private static void warmUp(DaemonServices daemonServices, File gradleUserHomeDir) {
+        LOGGER.debug("Initializing spare daemon.");
+        try {
+            daemonServices.get(ClassLoaderRegistry.class);
+            // The services are kept for the next build using this Gradle user home directory once released
+            GradleUserHomeScopeServiceRegistry userHomeServiceRegistry = daemonServices.get(GradleUserHomeScopeServiceRegistry.class);
+            userHomeServiceRegistry.release(userHomeServiceRegistry.getServicesFor(gradleUserHomeDir));
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not initialize spare daemon.", e);
+        }
+    }
+
     private static void invalidArgs(String message) {
         System.out.println("USAGE: <gradle version>");
         System.out.println(message);
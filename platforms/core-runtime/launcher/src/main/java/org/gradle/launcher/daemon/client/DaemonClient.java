@@ -32,6 +32,7 @@
 import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.nativeintegration.ProcessEnvironment;
 import org.gradle.internal.remote.internal.Connection;
+import org.gradle.launcher.daemon.context.DaemonConnectDetails;
 import org.gradle.launcher.daemon.context.DaemonContext;
 import org.gradle.launcher.daemon.diagnostics.DaemonDiagnostics;
 import org.gradle.launcher.daemon.protocol.Build;
@@ -103,11 +104,20 @@ public class DaemonClient implements BuildActionExecuter<BuildActionParameters,
     private final ExecutorFactory executorFactory;
     private final IdGenerator<UUID> idGenerator;
     private final ProcessEnvironment processEnvironment;
+    private final boolean startSpareDaemon;
 
     //TODO - outputEventListener and buildStandardInput are per-build settings
     //so down the road we should refactor the code accordingly and potentially attach them to BuildActionParameters
     public DaemonClient(DaemonConnector connector, OutputEventListener outputEventListener, ExplainingSpec<DaemonContext> compatibilitySpec,
                         InputStream buildStandardInput, ExecutorFactory executorFactory, IdGenerator<UUID> idGenerator, ProcessEnvironment processEnvironment) {
+        this(connector, outputEventListener, compatibilitySpec, buildStandardInput, executorFactory, idGenerator, processEnvironment, false);
+    }
+
+    /**
+     * @param startSpareDaemon whether to keep a spare idle daemon available for the next build once a build has finished
+     */
+    public DaemonClient(DaemonConnector connector, OutputEventListener outputEventListener, ExplainingSpec<DaemonContext> compatibilitySpec,
+                        InputStream buildStandardInput, ExecutorFactory executorFactory, IdGenerator<UUID> idGenerator, ProcessEnvironment processEnvironment, boolean startSpareDaemon) {
         this.connector = connector;
         this.outputEventListener = outputEventListener;
         this.compatibilitySpec = compatibilitySpec;
@@ -115,6 +125,7 @@ public DaemonClient(DaemonConnector connector, OutputEventListener outputEventLi
         this.executorFactory = executorFactory;
         this.idGenerator = idGenerator;
         this.processEnvironment = processEnvironment;
+        this.startSpareDaemon = startSpareDaemon;
     }
 
     protected IdGenerator<UUID> getIdGenerator() {
@@ -146,23 +157,28 @@ public BuildActionResult execute(BuildAction action, BuildActionParameters param
                 break;
             }
             // Compatible daemon was found, try it
+            BuildActionResult result;
             try {
                 Build build = new Build(buildId, connection.getDaemon().getToken(), action, requestContext.getClient(), requestContext.getStartTime(), requestContext.isInteractive(), parameters);
-                return executeBuild(build, connection, requestContext.getCancellationToken(), requestContext.getEventConsumer());
+                result = executeBuild(build, connection, requestContext.getCancellationToken(), requestContext.getEventConsumer());
             } catch (DaemonInitialConnectException e) {
                 // this exception means that we want to try again.
                 LOGGER.debug("{}, Trying a different daemon...", e.getMessage());
                 accumulatedExceptions.add(e);
+                continue;
             } finally {
                 connection.stop();
             }
+            maybeStartSpareDaemon(connection.getDaemon());
+            return result;
         }
 
         // No existing daemon was usable, so start a new one and try it once
         final DaemonClientConnection connection = connector.startDaemon(compatibilitySpec);
+        BuildActionResult result;
         try {
             Build build = new Build(buildId, connection.getDaemon().getToken(), action, requestContext.getClient(), requestContext.getStartTime(), requestContext.isInteractive(), parameters);
-            return executeBuild(build, connection, requestContext.getCancellationToken(), requestContext.getEventConsumer());
+            result = executeBuild(build, connection, requestContext.getCancellationToken(), requestContext.getEventConsumer());
         } catch (DaemonInitialConnectException e) {
             // This means we could not connect to the daemon we just started.  fail and don't try again
             throw new NoUsableDaemonFoundException("A new daemon was started but could not be connected to: " +
@@ -171,6 +187,15 @@ public BuildActionResult execute(BuildAction action, BuildActionParameters param
         } finally {
             connection.stop();
         }
+        maybeStartSpareDaemon(connection.getDaemon());
+        return result;
+    }
+
+    private void maybeStartSpareDaemon(DaemonConnectDetails usedDaemon) {
+        if (startSpareDaemon) {
+            // The daemon that ran this build does not count as spare, as it may not have been marked as idle yet
+            connector.maybeStartSpareDaemon(compatibilitySpec, usedDaemon);
+        }
     }
 
     protected BuildActionResult executeBuild(Build build, DaemonClientConnection connection, BuildCancellationToken cancellationToken, BuildEventConsumer buildEventConsumer) throws DaemonInitialConnectException {
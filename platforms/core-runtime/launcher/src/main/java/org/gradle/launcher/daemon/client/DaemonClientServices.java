@@ -15,6 +15,7 @@
  */
 package org.gradle.launcher.daemon.client;
 
+import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.context.DaemonContextBuilder;
@@ -35,8 +36,8 @@ public DaemonClientServices(ServiceRegistry parent, DaemonParameters daemonParam
         addProvider(new DaemonRegistryServices(daemonParameters.getBaseDir()));
     }
 
-    DaemonStarter createDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, JvmVersionValidator jvmVersionValidator) {
-        return new DefaultDaemonStarter(daemonDir, daemonParameters, daemonGreeter, jvmVersionValidator);
+    DaemonStarter createDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, JvmVersionValidator jvmVersionValidator, JvmVersionDetector jvmVersionDetector) {
+        return new DefaultDaemonStarter(daemonDir, daemonParameters, daemonGreeter, jvmVersionValidator, jvmVersionDetector);
     }
 
     @Override
@@ -45,6 +46,11 @@ protected void configureDaemonContextBuilder(DaemonContextBuilder builder) {
         builder.useDaemonParameters(daemonParameters);
     }
 
+    @Override
+    protected boolean isStartSpareDaemon() {
+        return daemonParameters.isSpareDaemon();
+    }
+
     DaemonParameters createDaemonParameters() {
         return daemonParameters;
     }
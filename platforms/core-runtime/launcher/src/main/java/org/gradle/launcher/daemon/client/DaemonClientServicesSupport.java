@@ -82,7 +82,13 @@ protected DaemonClient createDaemonClient(IdGenerator<UUID> idGenerator) {
                 buildStandardInput,
                 get(ExecutorFactory.class),
                 idGenerator,
-                get(ProcessEnvironment.class));
+                get(ProcessEnvironment.class),
+                isStartSpareDaemon());
+    }
+
+    // subclass hook, allowing the client to keep a spare daemon available
+    protected boolean isStartSpareDaemon() {
+        return false;
     }
 
     DaemonContext createDaemonContext(ProcessEnvironment processEnvironment) {
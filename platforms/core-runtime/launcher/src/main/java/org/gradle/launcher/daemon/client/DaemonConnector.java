@@ -71,4 +71,10 @@ public interface DaemonConnector {
      */
     DaemonClientConnection startSingleUseDaemon();
 
+    /**
+     * Starts a spare daemon that matches the given constraint in the background, unless a matching idle daemon other than the given one is already available.
+     * Failing to start the spare daemon is not an error.
+     */
+    void maybeStartSpareDaemon(ExplainingSpec<DaemonContext> constraint, DaemonConnectDetails usedDaemon);
+
 }
@@ -17,6 +17,18 @@
 
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 
+import java.util.List;
+
 public interface DaemonStarter {
     DaemonStartupInfo startDaemon(boolean singleRun);
+
+    /**
+     * Starts a spare daemon without waiting for it to start. The spare daemon advertises itself as idle once it has initialized rather than waiting for the client that started it to connect.
+     */
+    void startSpareDaemon();
+
+    /**
+     * Returns the uids of the spare daemons which have been started recently but have not advertised themselves as idle yet.
+     */
+    List<String> getStartingSpareDaemons();
 }
@@ -44,6 +44,7 @@
 import org.gradle.launcher.daemon.server.api.DaemonStateControl;
 import org.gradle.util.internal.CollectionUtils;
 
+import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedList;
@@ -247,6 +248,39 @@ public DaemonClientConnection startSingleUseDaemon() {
         return doStartDaemon(ExplainingSpecs.<DaemonContext>satisfyAll(), true);
     }
 
+    @Override
+    public void maybeStartSpareDaemon(ExplainingSpec<DaemonContext> constraint, DaemonConnectDetails usedDaemon) {
+        for (DaemonInfo daemonInfo : daemonRegistry.getIdle()) {
+            if (!daemonInfo.getUid().equals(usedDaemon.getUid()) && constraint.isSatisfiedBy(daemonInfo.getContext())) {
+                return;
+            }
+        }
+        // A spare daemon is busy while it initializes, and is not registered at all until its process has started
+        for (String daemonUid : daemonStarter.getStartingSpareDaemons()) {
+            DaemonInfo daemonInfo = findDaemon(daemonUid);
+            if (daemonInfo == null || constraint.isSatisfiedBy(daemonInfo.getContext())) {
+                LOGGER.debug("Spare Gradle daemon {} is starting.", daemonUid);
+                return;
+            }
+        }
+        try {
+            daemonStarter.startSpareDaemon();
+            LOGGER.debug("Started spare Gradle daemon.");
+        } catch (RuntimeException e) {
+            LOGGER.info("Could not start a spare Gradle daemon.", e);
+        }
+    }
+
+    @Nullable
+    private DaemonInfo findDaemon(String daemonUid) {
+        for (DaemonInfo daemonInfo : daemonRegistry.getAll()) {
+            if (daemonInfo.getUid().equals(daemonUid)) {
+                return daemonInfo;
+            }
+        }
+        return null;
+    }
+
     private DaemonClientConnection connectToDaemonWithId(DaemonStartupInfo daemon, ExplainingSpec<DaemonContext> constraint) throws ConnectException {
         // Look for 'our' daemon among the busy daemons - a daemon will start in busy state so that nobody else will grab it.
         for (DaemonInfo daemonInfo : daemonRegistry.getNotIdle()) {
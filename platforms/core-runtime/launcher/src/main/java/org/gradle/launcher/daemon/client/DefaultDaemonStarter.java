@@ -16,6 +16,7 @@
 package org.gradle.launcher.daemon.client;
 
 import org.gradle.api.GradleException;
+import org.gradle.api.JavaVersion;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.classpath.DefaultModuleRegistry;
 import org.gradle.api.internal.classpath.ModuleRegistry;
@@ -27,6 +28,9 @@
 import org.gradle.internal.installation.CurrentGradleInstallation;
 import org.gradle.internal.installation.GradleInstallation;
 import org.gradle.internal.io.StreamByteBuffer;
+import org.gradle.internal.jvm.JavaInfo;
+import org.gradle.internal.jvm.Jvm;
+import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.FlushableEncoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
@@ -39,6 +43,7 @@
 import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.diagnostics.DaemonStartupInfo;
 import org.gradle.launcher.daemon.registry.DaemonDir;
+import org.gradle.process.internal.ClassDataSharing;
 import org.gradle.process.internal.DefaultExecActionFactory;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.process.internal.JvmOptions;
@@ -49,31 +54,79 @@
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 public class DefaultDaemonStarter implements DaemonStarter {
     private static final Logger LOGGER = Logging.getLogger(DefaultDaemonStarter.class);
+    // Covers the start of the JVM and the warm-up of the daemon
+    private static final long SPARE_STARTUP_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
 
     private final DaemonDir daemonDir;
     private final DaemonParameters daemonParameters;
     private final DaemonGreeter daemonGreeter;
     private final JvmVersionValidator versionValidator;
+    private final JvmVersionDetector versionDetector;
 
-    public DefaultDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, JvmVersionValidator versionValidator) {
+    public DefaultDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, JvmVersionValidator versionValidator, JvmVersionDetector versionDetector) {
         this.daemonDir = daemonDir;
         this.daemonParameters = daemonParameters;
         this.daemonGreeter = daemonGreeter;
         this.versionValidator = versionValidator;
+        this.versionDetector = versionDetector;
     }
 
     @Override
     public DaemonStartupInfo startDaemon(boolean singleUse) {
+        StreamByteBuffer startupParameters = new StreamByteBuffer();
+        List<String> daemonArgs = getDaemonArgs(UUID.randomUUID().toString(), singleUse, false, startupParameters);
+        return startProcess(
+            daemonArgs,
+            daemonDir.getVersionedDir(),
+            daemonParameters.getGradleUserHomeDir().getAbsoluteFile(),
+            startupParameters.getInputStream()
+        );
+    }
+
+    @Override
+    public void startSpareDaemon() {
         String daemonUid = UUID.randomUUID().toString();
+        StreamByteBuffer startupParameters = new StreamByteBuffer();
+        List<String> daemonArgs = getDaemonArgs(daemonUid, false, true, startupParameters);
+        startSpareProcess(daemonUid, daemonArgs, daemonDir.getVersionedDir(), startupParameters);
+    }
+
+    @Override
+    public List<String> getStartingSpareDaemons() {
+        List<String> daemonUids = new ArrayList<>();
+        File[] markers = daemonDir.getVersionedDir().listFiles();
+        if (markers == null) {
+            return daemonUids;
+        }
+        for (File marker : markers) {
+            String daemonUid = DaemonDir.getStartingSpareDaemonUid(marker);
+            if (daemonUid == null) {
+                continue;
+            }
+            if (System.currentTimeMillis() - marker.lastModified() > SPARE_STARTUP_TIMEOUT_MILLIS) {
+                // The daemon did not start, or stopped before it became idle
+                GFileUtils.deleteQuietly(marker);
+            } else {
+                daemonUids.add(daemonUid);
+            }
+        }
+        return daemonUids;
+    }
 
+    /**
+     * Returns the command line of a daemon, and writes the parameters it reads from its standard input to the given buffer.
+     */
+    private List<String> getDaemonArgs(String daemonUid, boolean singleUse, boolean spare, StreamByteBuffer startupParameters) {
         GradleInstallation gradleInstallation = CurrentGradleInstallation.get();
         ModuleRegistry registry = new DefaultModuleRegistry(gradleInstallation);
         ClassPath classpath;
@@ -94,12 +147,17 @@ public DaemonStartupInfo startDaemon(boolean singleUse) {
 
         versionValidator.validate(daemonParameters);
 
+        JavaInfo jvm = daemonParameters.getEffectiveJvm();
+        String javaExecutable = jvm.getJavaExecutable().getAbsolutePath();
         List<String> daemonArgs = new ArrayList<>();
         daemonArgs.addAll(getPriorityArgs(daemonParameters.getPriority()));
-        daemonArgs.add(daemonParameters.getEffectiveJvm().getJavaExecutable().getAbsolutePath());
+        daemonArgs.add(javaExecutable);
 
         List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
         daemonArgs.addAll(daemonOpts);
+        // Not part of the daemon options, as these are compared when looking for a compatible daemon
+        JavaVersion javaVersion = jvm.equals(Jvm.current()) ? JavaVersion.current() : versionDetector.getJavaVersion(jvm);
+        daemonArgs.addAll(ClassDataSharing.forGradleUserHome(daemonParameters.getGradleUserHomeDir()).getJvmArgs(javaVersion, javaExecutable, classpath.getAsFiles(), daemonOpts));
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
 
@@ -124,14 +182,14 @@ public DaemonStartupInfo startDaemon(boolean singleUse) {
         daemonArgs.add(GradleVersion.current().getVersion());
 
         // Serialize configuration to daemon via the process' stdin
-        StreamByteBuffer buffer = new StreamByteBuffer();
-        FlushableEncoder encoder = new KryoBackedEncoder(new EncodedStream.EncodedOutput(buffer.getOutputStream()));
+        FlushableEncoder encoder = new KryoBackedEncoder(new EncodedStream.EncodedOutput(startupParameters.getOutputStream()));
         try {
             encoder.writeString(daemonParameters.getGradleUserHomeDir().getAbsolutePath());
             encoder.writeString(daemonDir.getBaseDir().getAbsolutePath());
             encoder.writeSmallInt(daemonParameters.getIdleTimeout());
             encoder.writeSmallInt(daemonParameters.getPeriodicCheckInterval());
             encoder.writeBoolean(singleUse);
+            encoder.writeBoolean(spare);
             encoder.writeString(daemonUid);
             encoder.writeSmallInt(daemonParameters.getPriority().ordinal());
             encoder.writeSmallInt(daemonOpts.size());
@@ -146,14 +204,7 @@ public DaemonStartupInfo startDaemon(boolean singleUse) {
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-        InputStream stdInput = buffer.getInputStream();
-
-        return startProcess(
-            daemonArgs,
-            daemonDir.getVersionedDir(),
-            daemonParameters.getGradleUserHomeDir().getAbsoluteFile(),
-            stdInput
-        );
+        return daemonArgs;
     }
 
     private List<String> getPriorityArgs(DaemonParameters.Priority priority) {
@@ -202,4 +253,32 @@ private DaemonStartupInfo startProcess(List<String> args, File workingDir, File
         }
     }
 
+    /**
+     * Starts the process of a spare daemon without waiting for it to detach, so that the client can exit while the daemon starts.
+     */
+    private void startSpareProcess(String daemonUid, List<String> args, File workingDir, StreamByteBuffer startupParameters) {
+        LOGGER.debug("Starting spare daemon process: workingDir = {}, daemonArgs: {}", workingDir, args);
+        File marker = daemonDir.getStartingSpareDaemonMarker(daemonUid);
+        try {
+            GFileUtils.mkdirs(workingDir);
+            GFileUtils.touch(marker);
+            // Nobody reads the greeting of a spare daemon, which logs everything else to its log file
+            File discard = new File(OperatingSystem.current().isWindows() ? "NUL" : "/dev/null");
+            Process process = new ProcessBuilder(args)
+                .directory(workingDir)
+                .redirectOutput(discard)
+                .redirectErrorStream(true)
+                .start();
+            OutputStream stdInput = process.getOutputStream();
+            try {
+                startupParameters.writeTo(stdInput);
+            } finally {
+                stdInput.close();
+            }
+        } catch (Exception e) {
+            GFileUtils.deleteQuietly(marker);
+            throw new GradleException("Could not start spare Gradle daemon.", e);
+        }
+    }
+
 }
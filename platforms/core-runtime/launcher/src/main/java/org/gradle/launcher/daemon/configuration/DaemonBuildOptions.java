@@ -48,6 +48,7 @@ public class DaemonBuildOptions extends BuildOptionSet<DaemonParameters> {
         new DebugServerOption(),
         new DebugSuspendOption(),
         new ApplyInstrumentationAgentOption(),
+        new SpareDaemonOption(),
         new DaemonOption(),
         new ForegroundOption(),
         new StopOption(),
@@ -238,6 +239,22 @@ public void applyTo(boolean value, DaemonParameters settings, Origin origin) {
         }
     }
 
+    /**
+     * Keeps a spare idle daemon running after each build, so that the next build which cannot use the current daemon does not have to wait for a new one to start.
+     */
+    public static class SpareDaemonOption extends BooleanBuildOption<DaemonParameters> {
+        public static final String GRADLE_PROPERTY = "org.gradle.daemon.spare";
+
+        public SpareDaemonOption() {
+            super(GRADLE_PROPERTY);
+        }
+
+        @Override
+        public void applyTo(boolean value, DaemonParameters settings, Origin origin) {
+            settings.setSpareDaemon(value);
+        }
+    }
+
     public static class DaemonOption extends BooleanBuildOption<DaemonParameters> {
         public static final String GRADLE_PROPERTY = "org.gradle.daemon";
 
@@ -49,6 +49,7 @@ public class DaemonParameters {
     private int periodicCheckInterval = DEFAULT_PERIODIC_CHECK_INTERVAL_MILLIS;
     private final DaemonJvmOptions jvmOptions;
     private boolean applyInstrumentationAgent = true;
+    private boolean spareDaemon;
     private Map<String, String> envVariables;
     private boolean enabled = true;
     private boolean hasJvmArgs;
@@ -218,6 +219,15 @@ public DaemonParameters setApplyInstrumentationAgent(boolean applyInstrumentatio
         return this;
     }
 
+    public boolean isSpareDaemon() {
+        return spareDaemon;
+    }
+
+    public DaemonParameters setSpareDaemon(boolean spareDaemon) {
+        this.spareDaemon = spareDaemon;
+        return this;
+    }
+
     public boolean isForeground() {
         return foreground;
     }
@@ -19,9 +19,13 @@
 import org.gradle.util.internal.GFileUtils;
 import org.gradle.util.GradleVersion;
 
+import javax.annotation.Nullable;
 import java.io.File;
 
 public class DaemonDir {
+    private static final String SPARE_MARKER_PREFIX = "spare-";
+    private static final String SPARE_MARKER_SUFFIX = ".starting";
+
     private final File baseDir;
     private final File versionedDir;
     private final File registryFile;
@@ -44,4 +48,23 @@ public File getVersionedDir() {
     public File getRegistry() {
         return registryFile;
     }
+
+    /**
+     * Returns the file which marks the spare daemon with the given uid as starting, until the daemon advertises itself as idle.
+     */
+    public File getStartingSpareDaemonMarker(String daemonUid) {
+        return new File(versionedDir, SPARE_MARKER_PREFIX + daemonUid + SPARE_MARKER_SUFFIX);
+    }
+
+    /**
+     * Returns the uid of the spare daemon marked as starting by the given file, or null if the file is not such a marker.
+     */
+    @Nullable
+    public static String getStartingSpareDaemonUid(File file) {
+        String name = file.getName();
+        if (!name.startsWith(SPARE_MARKER_PREFIX) || !name.endsWith(SPARE_MARKER_SUFFIX)) {
+            return null;
+        }
+        return name.substring(SPARE_MARKER_PREFIX.length(), name.length() - SPARE_MARKER_SUFFIX.length());
+    }
 }
@@ -176,6 +176,23 @@ public void run() {
         LOGGER.lifecycle(DaemonMessages.PROCESS_STARTED);
     }
 
+    /**
+     * Advertises this daemon as idle, so that any client may connect to it. A daemon starts as busy so that only the client which started it can connect to it.
+     *
+     * @throws IllegalStateException if this daemon has not been started.
+     */
+    public void advertiseIdle() {
+        lifecycleLock.lock();
+        try {
+            if (stateCoordinator == null) {
+                throw new IllegalStateException("cannot advertise daemon as idle as it has not been started.");
+            }
+            registryUpdater.onCompleteActivity();
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
     /**
      * Stops the daemon, blocking until any current requests/connections have been satisfied.
      * <p>
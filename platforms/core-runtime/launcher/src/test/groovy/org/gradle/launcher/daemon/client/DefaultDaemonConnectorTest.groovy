@@ -39,6 +39,7 @@ class DefaultDaemonConnectorTest extends Specification {
     def javaHome = new File("tmp")
     def connectTimeoutSecs = 1
     def daemonCounter = 0
+    def startingSpareDaemons = []
 
     class OutgoingConnectorStub implements OutgoingConnector {
         ConnectCompletion connect(Address address) throws ConnectException {
@@ -61,7 +62,11 @@ class DefaultDaemonConnectorTest extends Specification {
         def connector = Spy(DefaultDaemonConnector, constructorArgs: [
                 new EmbeddedDaemonRegistry(),
                 Spy(OutgoingConnectorStub),
-                { startBusyDaemon() } as DaemonStarter,
+                [
+                    startDaemon: { startBusyDaemon() },
+                    startSpareDaemon: { startingSpareDaemons << startBusyDaemon().uid },
+                    getStartingSpareDaemons: { startingSpareDaemons }
+                ] as DaemonStarter,
                 Stub(DaemonStartListener),
                 Stub(ProgressLoggerFactory),
                 Stub(Serializer)]
@@ -189,4 +194,61 @@ class DefaultDaemonConnectorTest extends Specification {
 
         registry.all.empty
     }
+
+    def "maybeStartSpareDaemon() starts a daemon when no other daemon that matches spec is idle"() {
+        given:
+        startIdleDaemon()
+        startIdleDaemon()
+        def usedDaemon = registry.all.find { it.context.pid == 0 }
+
+        when:
+        connector.maybeStartSpareDaemon({it.pid != 1} as DummyExplainingSpec, usedDaemon)
+
+        then:
+        numAllDaemons == 3
+        registry.notIdle*.context*.pid == [2]
+        startingSpareDaemons == ["2"]
+    }
+
+    def "maybeStartSpareDaemon() does not start a daemon when a spare daemon that matches spec is starting"() {
+        given:
+        startIdleDaemon()
+        def usedDaemon = registry.all.find { it.context.pid == 0 }
+        connector.maybeStartSpareDaemon({ true } as ExplainingSpec, usedDaemon)
+        startingSpareDaemons << "not-registered-yet"
+
+        when:
+        connector.maybeStartSpareDaemon({ true } as ExplainingSpec, usedDaemon)
+
+        then:
+        numAllDaemons == 2
+
+        when:
+        startingSpareDaemons.remove("1")
+        connector.maybeStartSpareDaemon({ true } as ExplainingSpec, usedDaemon)
+
+        then:
+        numAllDaemons == 2
+
+        when:
+        startingSpareDaemons.remove("not-registered-yet")
+        startingSpareDaemons << "1"
+        connector.maybeStartSpareDaemon({ it.pid != 1 } as DummyExplainingSpec, usedDaemon)
+
+        then:
+        numAllDaemons == 3
+    }
+
+    def "maybeStartSpareDaemon() does not start a daemon when another daemon that matches spec is idle"() {
+        given:
+        startIdleDaemon()
+        startIdleDaemon()
+        def usedDaemon = registry.all.find { it.context.pid == 0 }
+
+        when:
+        connector.maybeStartSpareDaemon({ true } as ExplainingSpec, usedDaemon)
+
+        then:
+        numAllDaemons == 2
+    }
 }
@@ -323,19 +323,28 @@ public void run() {
                         } finally {
                             lock.unlock();
                         }
-                        for (InterHubMessage message : messages) {
-                            try {
-                                connection.dispatch(message);
-                            } catch (RecoverableMessageIOException e) {
-                                addToIncoming(new StreamFailureMessage(e));
+                        // Keep writing the messages queued in the meantime, so that a steady stream of messages is coalesced into as few socket writes as possible
+                        while (!messages.isEmpty()) {
+                            for (InterHubMessage message : messages) {
+                                try {
+                                    connection.dispatch(message);
+                                } catch (RecoverableMessageIOException e) {
+                                    addToIncoming(new StreamFailureMessage(e));
+                                }
+                                if (message instanceof EndOfStream) {
+                                    connection.flush();
+                                    return;
+                                }
                             }
-                            if (message instanceof EndOfStream) {
-                                connection.flush();
-                                return;
+                            messages.clear();
+                            lock.lock();
+                            try {
+                                queue.poll(messages);
+                            } finally {
+                                lock.unlock();
                             }
                         }
                         connection.flush();
-                        messages.clear();
                     }
                 } finally {
                     lock.lock();
@@ -56,6 +56,17 @@ public void take(Collection<InterHubMessage> drainTo) {
         queue.clear();
     }
 
+    /**
+     * Moves the messages that are available for this endpoint to the given collection, without waiting for more to arrive.
+     */
+    public void poll(Collection<InterHubMessage> drainTo) {
+        if (queue.isEmpty()) {
+            owner.empty(this);
+        }
+        drainTo.addAll(queue);
+        queue.clear();
+    }
+
     public void stop() {
         owner.stopped(this);
     }
@@ -49,7 +49,9 @@ public void dispatch(InterHubMessage message) {
     }
 
     void empty(EndPointQueue endPointQueue) {
-        waiting.add(endPointQueue);
+        if (!waiting.contains(endPointQueue)) {
+            waiting.add(endPointQueue);
+        }
         flush();
     }
 
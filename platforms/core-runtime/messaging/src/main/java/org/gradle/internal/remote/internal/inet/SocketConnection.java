@@ -33,6 +33,7 @@
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.SelectionKey;
@@ -42,8 +43,8 @@
 public class SocketConnection<T> implements RemoteConnection<T> {
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketConnection.class);
     private final SocketChannel socket;
-    private final SocketInetAddress localAddress;
-    private final SocketInetAddress remoteAddress;
+    private final Object localAddress;
+    private final Object remoteAddress;
     private final ObjectWriter<T> objectWriter;
     private final ObjectReader<T> objectReader;
     private final InputStream instr;
@@ -58,18 +59,25 @@ public SocketConnection(SocketChannel socket, MessageSerializer streamSerializer
             socket.configureBlocking(false);
             outstr = new SocketOutputStream(socket);
             instr = new SocketInputStream(socket);
+            localAddress = displayAddressOf(socket.getLocalAddress());
+            remoteAddress = displayAddressOf(socket.getRemoteAddress());
         } catch (IOException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
-        InetSocketAddress localSocketAddress = (InetSocketAddress) socket.socket().getLocalSocketAddress();
-        localAddress = new SocketInetAddress(localSocketAddress.getAddress(), localSocketAddress.getPort());
-        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-        remoteAddress = new SocketInetAddress(remoteSocketAddress.getAddress(), remoteSocketAddress.getPort());
         objectReader = messageSerializer.newReader(streamSerializer.newDecoder(instr));
         encoder = streamSerializer.newEncoder(outstr);
         objectWriter = messageSerializer.newWriter(encoder);
     }
 
+    private static Object displayAddressOf(SocketAddress address) {
+        if (address instanceof InetSocketAddress) {
+            InetSocketAddress inetAddress = (InetSocketAddress) address;
+            return new SocketInetAddress(inetAddress.getAddress(), inetAddress.getPort());
+        }
+        // A Unix domain socket, of which only the listening side has a path
+        return address;
+    }
+
     @Override
     public String toString() {
         return "socket connection from " + localAddress + " to " + remoteAddress;
@@ -152,6 +160,8 @@ public void close() throws IOException {
     }
 
     private static class SocketInputStream extends InputStream {
+        // Large enough to receive a batch of messages coalesced by the sending side in a single read
+        private static final int BUFFER_SIZE = 32 * 1024;
         private final Selector selector;
         private final ByteBuffer buffer;
         private final SocketChannel socket;
@@ -161,7 +171,7 @@ public SocketInputStream(SocketChannel socket) throws IOException {
             this.socket = socket;
             selector = Selector.open();
             socket.register(selector, SelectionKey.OP_READ);
-            buffer = ByteBuffer.allocateDirect(4096);
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
             BufferCaster.cast(buffer).limit(0);
         }
 
@@ -181,29 +191,22 @@ public int read(byte[] dest, int offset, int max) throws IOException {
             }
 
             if (buffer.remaining() == 0) {
-                try {
-                    selector.select();
-                } catch (ClosedSelectorException e) {
-                    return -1;
-                }
                 if (!selector.isOpen()) {
                     return -1;
                 }
-
-                BufferCaster.cast(buffer).clear();
-                int nread;
-                try {
-                    nread = socket.read(buffer);
-                } catch (IOException e) {
-                    if (isEndOfStream(e)) {
-                        BufferCaster.cast(buffer).position(0);
-                        BufferCaster.cast(buffer).limit(0);
+                // Data is usually already available while a stream of messages is being received, so only wait for the socket when a read finds nothing
+                int nread = readIntoBuffer();
+                while (nread == 0) {
+                    try {
+                        selector.select();
+                    } catch (ClosedSelectorException e) {
+                        return -1;
+                    }
+                    if (!selector.isOpen()) {
                         return -1;
                     }
-                    throw e;
+                    nread = readIntoBuffer();
                 }
-                BufferCaster.cast(buffer).flip();
-
                 if (nread < 0) {
                     return -1;
                 }
@@ -214,6 +217,23 @@ public int read(byte[] dest, int offset, int max) throws IOException {
             return count;
         }
 
+        private int readIntoBuffer() throws IOException {
+            BufferCaster.cast(buffer).clear();
+            int nread;
+            try {
+                nread = socket.read(buffer);
+            } catch (IOException e) {
+                if (isEndOfStream(e)) {
+                    BufferCaster.cast(buffer).position(0);
+                    BufferCaster.cast(buffer).limit(0);
+                    return -1;
+                }
+                throw e;
+            }
+            BufferCaster.cast(buffer).flip();
+            return nread;
+        }
+
         @Override
         public void close() throws IOException {
             selector.close();
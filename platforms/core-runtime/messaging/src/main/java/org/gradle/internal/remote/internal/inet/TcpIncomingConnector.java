@@ -29,6 +29,9 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.channels.ClosedChannelException;
@@ -38,6 +41,10 @@
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * Accepts connections on a TCP port. Connections that only accept local clients also listen on a Unix domain socket when the JVM supports it,
+ * which local clients can connect to instead.
+ */
 public class TcpIncomingConnector implements IncomingConnector {
     private static final Logger LOGGER = LoggerFactory.getLogger(TcpIncomingConnector.class);
     private final ExecutorFactory executorFactory;
@@ -63,12 +70,19 @@ public ConnectionAcceptor accept(Action<ConnectCompletion> action, boolean allow
         }
 
         UUID id = idGenerator.generateId();
+        UnixDomainSockets unixDomainSockets = allowRemote ? null : UnixDomainSockets.getInstance();
+        final File socketFile = unixDomainSockets == null ? null : unixDomainSockets.getSocketFile(id);
+        final ServerSocketChannel localServerSocket = socketFile == null ? null : bindLocal(unixDomainSockets, socketFile);
         List<InetAddress> addresses = Collections.singletonList(addressFactory.getLocalBindingAddress());
-        final Address address = new MultiChoiceAddress(id, localPort, addresses);
+        final Address address = new MultiChoiceAddress(id, localPort, addresses, localServerSocket == null ? null : socketFile);
         LOGGER.debug("Listening on {}.", address);
 
         final ManagedExecutor executor = executorFactory.create("Incoming " + (allowRemote ? "remote" : "local")+ " TCP Connector on port " + localPort);
         executor.execute(new Receiver(serverSocket, action, allowRemote));
+        if (localServerSocket != null) {
+            // Only local processes can connect to the socket
+            executor.execute(new Receiver(localServerSocket, action, true));
+        }
 
         return new ConnectionAcceptor() {
             @Override
@@ -78,7 +92,11 @@ public Address getAddress() {
 
             @Override
             public void requestStop() {
-                CompositeStoppable.stoppable(serverSocket).stop();
+                CompositeStoppable.stoppable(serverSocket, localServerSocket).stop();
+                if (localServerSocket != null) {
+                    //noinspection ResultOfMethodCallIgnored
+                    socketFile.delete();
+                }
             }
 
             @Override
@@ -89,6 +107,16 @@ public void stop() {
         };
     }
 
+    @Nullable
+    private static ServerSocketChannel bindLocal(UnixDomainSockets unixDomainSockets, File socketFile) {
+        try {
+            return unixDomainSockets.bind(socketFile);
+        } catch (IOException e) {
+            LOGGER.debug("Could not listen on {}, accepting TCP connections only.", socketFile, e);
+            return null;
+        }
+    }
+
     private class Receiver implements Runnable {
         private final ServerSocketChannel serverSocket;
         private final Action<ConnectCompletion> action;
@@ -106,14 +134,15 @@ public void run() {
                 try {
                     while (true) {
                         final SocketChannel socket = serverSocket.accept();
-                        InetSocketAddress remoteSocketAddress = (InetSocketAddress) socket.socket().getRemoteSocketAddress();
-                        InetAddress remoteInetAddress = remoteSocketAddress.getAddress();
-                        if (!allowRemote && !addressFactory.isCommunicationAddress(remoteInetAddress)) {
-                            LOGGER.error("Cannot accept connection from remote address {}.", remoteInetAddress);
-                            socket.close();
-                            continue;
+                        if (!allowRemote) {
+                            InetAddress remoteInetAddress = ((InetSocketAddress) socket.getRemoteAddress()).getAddress();
+                            if (!addressFactory.isCommunicationAddress(remoteInetAddress)) {
+                                LOGGER.error("Cannot accept connection from remote address {}.", remoteInetAddress);
+                                socket.close();
+                                continue;
+                            }
                         }
-                        LOGGER.debug("Accepted connection from {} to {}.", socket.socket().getRemoteSocketAddress(), socket.socket().getLocalSocketAddress());
+                        LOGGER.debug("Accepted connection from {} to {}.", socket.getRemoteAddress(), socket.getLocalAddress());
                         try {
                             action.execute(new SocketConnectCompletion(socket));
                         } catch (Throwable t) {
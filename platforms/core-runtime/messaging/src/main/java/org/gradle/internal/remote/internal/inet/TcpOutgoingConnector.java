@@ -23,11 +23,15 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.*;
 import java.nio.channels.SocketChannel;
 import java.util.List;
 
+/**
+ * Connects to a TCP port, or to the Unix domain socket of the address instead when the JVM supports it.
+ */
 public class TcpOutgoingConnector implements OutgoingConnector {
     private static final Logger LOGGER = LoggerFactory.getLogger(TcpOutgoingConnector.class);
     private static final int CONNECT_TIMEOUT = 10000;
@@ -40,6 +44,19 @@ public ConnectCompletion connect(Address destinationAddress) throws org.gradle.i
         InetEndpoint address = (InetEndpoint) destinationAddress;
         LOGGER.debug("Attempting to connect to {}.", address);
 
+        File socketFile = address instanceof MultiChoiceAddress ? ((MultiChoiceAddress) address).getSocketFile() : null;
+        UnixDomainSockets unixDomainSockets = UnixDomainSockets.getInstance();
+        if (socketFile != null && unixDomainSockets != null) {
+            try {
+                SocketChannel socketChannel = unixDomainSockets.connect(socketFile);
+                LOGGER.debug("Connected to socket {}.", socketFile);
+                return new SocketConnectCompletion(socketChannel);
+            } catch (IOException e) {
+                // The socket may not be visible to this process, e.g. when it has a different temporary directory
+                LOGGER.debug("Cannot connect to socket {}, trying TCP.", socketFile, e);
+            }
+        }
+
         // Try each address in turn. Not all of them are necessarily reachable (eg when socket option IPV6_V6ONLY
         // is on - the default for debian and others), so we will try each of them until we can connect
         List<InetAddress> candidateAddresses = address.getCandidates();
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.remote.internal.inet;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.os.OperatingSystem;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.UUID;
+
+/**
+ * Opens Unix domain socket channels, which local processes can use to communicate without going through the TCP stack.
+ *
+ * <p>These channels are available from Java 16 on and are accessed reflectively, as this code also runs in older JVMs.
+ * They are only used on Linux.</p>
+ */
+class UnixDomainSockets {
+    /**
+     * Set this system property to {@code false} to only communicate over TCP.
+     */
+    static final String ENABLED_PROPERTY = "org.gradle.internal.remote.unix.sockets";
+
+    // Longer paths do not fit into the address structure of all kernels
+    private static final int MAX_PATH_LENGTH = 100;
+
+    private static final UnixDomainSockets INSTANCE = create();
+
+    private final ProtocolFamily protocolFamily;
+    private final Method addressFactory;
+    private final Method serverChannelFactory;
+    private final Method channelFactory;
+
+    private UnixDomainSockets(ProtocolFamily protocolFamily, Method addressFactory, Method serverChannelFactory, Method channelFactory) {
+        this.protocolFamily = protocolFamily;
+        this.addressFactory = addressFactory;
+        this.serverChannelFactory = serverChannelFactory;
+        this.channelFactory = channelFactory;
+    }
+
+    /**
+     * Returns the Unix domain sockets of this JVM, or null when they cannot or should not be used.
+     */
+    @Nullable
+    static UnixDomainSockets getInstance() {
+        return INSTANCE;
+    }
+
+    @Nullable
+    private static UnixDomainSockets create() {
+        if (!OperatingSystem.current().isLinux() || "false".equals(System.getProperty(ENABLED_PROPERTY))) {
+            return null;
+        }
+        try {
+            ProtocolFamily protocolFamily = StandardProtocolFamily.valueOf("UNIX");
+            Method addressFactory = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", String.class);
+            Method serverChannelFactory = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+            Method channelFactory = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+            return new UnixDomainSockets(protocolFamily, addressFactory, serverChannelFactory, channelFactory);
+        } catch (IllegalArgumentException | ReflectiveOperationException e) {
+            // Running on Java 15 or earlier
+            return null;
+        }
+    }
+
+    /**
+     * Returns the file to bind the socket with the given id to, or null when there is no suitable location for it.
+     */
+    @Nullable
+    File getSocketFile(UUID id) {
+        File socketFile = new File(System.getProperty("java.io.tmpdir"), "gradle-" + id + ".sock").getAbsoluteFile();
+        return socketFile.getPath().length() <= MAX_PATH_LENGTH ? socketFile : null;
+    }
+
+    ServerSocketChannel bind(File socketFile) throws IOException {
+        ServerSocketChannel channel = (ServerSocketChannel) invoke(serverChannelFactory, protocolFamily);
+        try {
+            channel.bind(addressOf(socketFile));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    SocketChannel connect(File socketFile) throws IOException {
+        SocketChannel channel = (SocketChannel) invoke(channelFactory, protocolFamily);
+        try {
+            channel.connect(addressOf(socketFile));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    private SocketAddress addressOf(File socketFile) throws IOException {
+        return (SocketAddress) invoke(addressFactory, socketFile.getPath());
+    }
+
+    private static Object invoke(Method factory, Object argument) throws IOException {
+        try {
+            return factory.invoke(null, argument);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+}
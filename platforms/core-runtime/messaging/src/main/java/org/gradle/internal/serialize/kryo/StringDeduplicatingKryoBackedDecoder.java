@@ -148,7 +148,7 @@ public String readString() throws EOFException {
     @Override
     public String readNullableString() throws EOFException {
         try {
-            int idx = readInt();
+            int idx = input.readInt(true) - 1;
             if (idx == -1) {
                 return null;
             }
@@ -85,7 +85,7 @@ public void writeString(CharSequence value) {
     @Override
     public void writeNullableString(@Nullable CharSequence value) {
         if (value == null) {
-            output.writeInt(-1);
+            output.writeInt(0, true);
             return;
         } else {
             if (strings == null) {
@@ -95,12 +95,13 @@ public void writeNullableString(@Nullable CharSequence value) {
         String key = value.toString();
         Integer index = strings.get(key);
         if (index == null) {
+            // Indexes are written as variable length values shifted by one, so that 0 can stand for null
             index = strings.size();
-            output.writeInt(index);
+            output.writeInt(index + 1, true);
             strings.put(key, index);
             output.writeString(key);
         } else {
-            output.writeInt(index);
+            output.writeInt(index + 1, true);
         }
     }
 
@@ -57,6 +57,35 @@ class MultiEndPointQueueTest extends AbstractQueueTest {
         messages == [message]
     }
 
+    def "endpoint polls queued messages without waiting"() {
+        given:
+        def message1 = unicast()
+        def message2 = unicast()
+        def endpoint = queue.newEndpoint()
+
+        when:
+        def messages = []
+        endpoint.poll(messages)
+
+        then:
+        messages.empty
+
+        when:
+        queue.dispatch(message1)
+        endpoint.poll(messages)
+
+        then:
+        messages == [message1]
+
+        when:
+        queue.dispatch(message2)
+        messages.clear()
+        endpoint.take(messages)
+
+        then:
+        messages == [message2]
+    }
+
     def "forwards queued broadcast messages to all endpoints"() {
         given:
         def message1 = unicast()
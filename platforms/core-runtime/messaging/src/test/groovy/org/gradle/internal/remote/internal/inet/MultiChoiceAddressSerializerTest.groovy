@@ -24,4 +24,13 @@ class MultiChoiceAddressSerializerTest extends SerializerSpec {
         expect:
         serialize(address, new MultiChoiceAddressSerializer()) == address
     }
+
+    def "serializes an address with a socket file"() {
+        def address = new MultiChoiceAddress(UUID.randomUUID(), 1234, [InetAddress.getLocalHost()], new File("gradle.sock"))
+
+        expect:
+        def result = serialize(address, new MultiChoiceAddressSerializer())
+        result == address
+        result.socketFile == new File("gradle.sock")
+    }
 }
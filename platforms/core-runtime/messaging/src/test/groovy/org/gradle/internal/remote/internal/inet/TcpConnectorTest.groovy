@@ -76,6 +76,26 @@ class TcpConnectorTest extends ConcurrentSpec {
         connection?.stop()
     }
 
+    @Requires([UnitTestPreconditions.Linux, UnitTestPreconditions.Jdk16OrLater])
+    def "client connects to server using unix domain socket when local only"() {
+        Action action = Mock()
+
+        when:
+        def acceptor = incomingConnector.accept(action, false)
+        def connection = outgoingConnector.connect(acceptor.address).create(serializer)
+
+        then:
+        acceptor.address.socketFile.exists()
+        connection.toString().contains(acceptor.address.socketFile.name)
+
+        cleanup:
+        acceptor?.stop()
+        connection?.stop()
+
+        and:
+        !acceptor.address.socketFile.exists()
+    }
+
     def "server executes action when incoming connection received"() {
         Action action = Mock()
 
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.serialize.kryo
+
+import org.gradle.internal.serialize.AbstractCodecTest
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+
+class StringDeduplicatingKryoBackedCodecTest extends AbstractCodecTest {
+    @Override
+    void encodeTo(OutputStream outputStream, Closure<Encoder> closure) {
+        def encoder = new StringDeduplicatingKryoBackedEncoder(outputStream, 10)
+        closure.call(encoder)
+        encoder.flush()
+    }
+
+    @Override
+    void decodeFrom(InputStream inputStream, Closure<Decoder> closure) {
+        def decoder = new StringDeduplicatingKryoBackedDecoder(inputStream, 10)
+        closure.call(decoder)
+    }
+
+    def "writes repeated strings as a single byte reference"() {
+        when:
+        def once = encode { Encoder encoder ->
+            encoder.writeString("some.group")
+        }
+        def bytes = encode { Encoder encoder ->
+            encoder.writeString("some.group")
+            encoder.writeNullableString(null)
+            encoder.writeString("some.group")
+            encoder.writeString("other")
+        }
+
+        then:
+        bytes.length == once.length + 1 + 1 + 1 + "other".length()
+        decode(bytes) { Decoder decoder ->
+            assert decoder.readString() == "some.group"
+            assert decoder.readNullableString() == null
+            assert decoder.readString() == "some.group"
+            assert decoder.readString() == "other"
+        }
+    }
+
+    def "can decode many distinct strings"() {
+        when:
+        def values = (0..1000).collect { "value-$it".toString() }
+        def bytes = encode { Encoder encoder ->
+            values.each { encoder.writeString(it) }
+            values.each { encoder.writeString(it) }
+        }
+
+        then:
+        decode(bytes) { Decoder decoder ->
+            values.each { assert decoder.readString() == it }
+            values.each { assert decoder.readString() == it }
+        }
+    }
+}
@@ -22,6 +22,7 @@
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
 import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
 import org.gradle.api.artifacts.component.ModuleComponentSelector;
 import org.gradle.api.attributes.Attribute;
 import org.gradle.api.capabilities.Capability;
@@ -56,6 +57,7 @@
 import org.gradle.internal.deprecation.DeprecationLogger;
 import org.gradle.internal.operations.BuildOperationConstraint;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.resolve.ModuleVersionResolveException;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
@@ -96,6 +98,11 @@ public class DependencyGraphBuilder {
     private final ResolutionConflictTracker conflictTracker;
     private final GraphVariantSelector variantSelector;
 
+    /**
+     * The maximum number of components whose metadata is downloaded speculatively alongside each parallel batch. Disabled by default.
+     */
+    private static final int MAX_SPECULATIVE_METADATA_DOWNLOADS = Integer.getInteger("org.gradle.internal.resolution.speculative-metadata-downloads", 0);
+
     final static Spec<EdgeState> ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC = dependencyState -> dependencyState.getDependencyState().getDependency().isEndorsingStrictVersions();
     final static Spec<EdgeState> NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC = dependencyState -> !dependencyState.getDependencyState().getDependency().isEndorsingStrictVersions();
 
@@ -178,6 +185,9 @@ public void resolve(
     private void traverseGraph(final ResolveState resolveState) {
         resolveState.onMoreSelected(resolveState.getRoot());
         final List<EdgeState> dependencies = new ArrayList<>();
+        final MetadataPrefetcher prefetcher = MAX_SPECULATIVE_METADATA_DOWNLOADS > 0
+            ? new MetadataPrefetcher(metaDataResolver, versionSelectorScheme, MAX_SPECULATIVE_METADATA_DOWNLOADS)
+            : null;
 
         while (resolveState.peek() != null || moduleConflictHandler.hasConflicts() || capabilitiesConflictHandler.hasConflicts()) {
             if (resolveState.peek() != null) {
@@ -190,9 +200,9 @@ private void traverseGraph(final ResolveState resolveState) {
                 // Initialize and collect any new outgoing edges of this node
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
-                boolean edgeWasProcessed = resolveEdges(node, dependencies, ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, false, resolveState);
+                boolean edgeWasProcessed = resolveEdges(node, dependencies, ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, false, resolveState, prefetcher);
                 node.collectEndorsedStrictVersions(dependencies);
-                resolveEdges(node, dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, edgeWasProcessed, resolveState);
+                resolveEdges(node, dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, edgeWasProcessed, resolveState, prefetcher);
             } else {
                 // We have some batched up conflicts. Resolve the first, and continue traversing the graph
                 if (moduleConflictHandler.hasConflicts()) {
@@ -249,12 +259,13 @@ private boolean resolveEdges(
         final List<EdgeState> dependencies,
         final Spec<EdgeState> dependencyFilter,
         final boolean recomputeSelectors,
-        final ResolveState resolveState) {
+        final ResolveState resolveState,
+        @Nullable final MetadataPrefetcher prefetcher) {
         if (dependencies.isEmpty()) {
             return false;
         }
         if (performSelectionSerially(dependencies, dependencyFilter, resolveState, recomputeSelectors)) {
-            maybeDownloadMetadataInParallel(node, dependencies, dependencyFilter);
+            maybeDownloadMetadataInParallel(node, dependencies, dependencyFilter, resolveState, prefetcher);
             attachToTargetRevisionsSerially(dependencies, dependencyFilter);
             return true;
         } else {
@@ -327,8 +338,9 @@ private void checkForModuleConflicts(ResolveState resolveState, ModuleResolveSta
     /**
      * Prepares the resolution of edges, either serially or concurrently.
      * It uses a simple heuristic to determine if we should perform concurrent resolution, based on the number of edges, and whether they have unresolved metadata.
+     * When a prefetcher is available, the metadata of components likely to be needed by the queued nodes is downloaded in the same batch.
      */
-    private void maybeDownloadMetadataInParallel(NodeState node, List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter) {
+    private void maybeDownloadMetadataInParallel(NodeState node, List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter, ResolveState resolveState, @Nullable MetadataPrefetcher prefetcher) {
         List<ComponentState> requiringDownload = null;
         for (EdgeState dependency : dependencies) {
             if (!dependencyFilter.isSatisfiedBy(dependency)) {
@@ -345,14 +357,31 @@ private void maybeDownloadMetadataInParallel(NodeState node, List<EdgeState> dep
                 }
             }
         }
+        if (requiringDownload == null) {
+            return;
+        }
+        // Only look ahead when metadata has to be downloaded anyway, so that speculative downloads do not add round trips of their own
+        List<RunnableBuildOperation> speculativeDownloads = Collections.emptyList();
+        if (prefetcher != null) {
+            for (ComponentState componentState : requiringDownload) {
+                if (componentState.getComponentId() instanceof ModuleComponentIdentifier) {
+                    prefetcher.downloading((ModuleComponentIdentifier) componentState.getComponentId());
+                }
+            }
+            speculativeDownloads = prefetcher.selectDownloads(resolveState.getQueuedNodes());
+        }
         // Only download in parallel if there is more than 1 component to download
-        if (requiringDownload != null && requiringDownload.size() > 1) {
+        if (requiringDownload.size() + speculativeDownloads.size() > 1) {
             final ImmutableList<ComponentState> toDownloadInParallel = ImmutableList.copyOf(requiringDownload);
-            LOGGER.debug("Submitting {} metadata files to resolve in parallel for {}", toDownloadInParallel.size(), node);
+            final List<RunnableBuildOperation> toPrefetch = speculativeDownloads;
+            LOGGER.debug("Submitting {} metadata files to resolve in parallel for {}, and {} to prefetch", toDownloadInParallel.size(), node, toPrefetch.size());
             buildOperationExecutor.runAll(buildOperationQueue -> {
                 for (final ComponentState componentState : toDownloadInParallel) {
                     buildOperationQueue.add(new DownloadMetadataOperation(componentState));
                 }
+                for (RunnableBuildOperation operation : toPrefetch) {
+                    buildOperationQueue.add(operation);
+                }
             }, BuildOperationConstraint.UNCONSTRAINED);
         }
     }
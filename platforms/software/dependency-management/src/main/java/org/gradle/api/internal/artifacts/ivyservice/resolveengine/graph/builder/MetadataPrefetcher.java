@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds components whose metadata is likely to be needed later in the traversal, so that it can be downloaded in the same
+ * parallel batch as the metadata needed by the node being visited.
+ *
+ * <p>Candidates are the fixed version dependencies declared by the nodes waiting to be visited, for which the component
+ * identifier is known without performing selection. Downloading them only warms up the metadata caches: nothing is attached
+ * to the graph, so the result of the resolution does not depend on the speculative downloads.</p>
+ */
+class MetadataPrefetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetadataPrefetcher.class);
+
+    private final ComponentMetaDataResolver metaDataResolver;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final int maxPerBatch;
+    private final Set<ModuleComponentIdentifier> seen = new HashSet<>();
+
+    MetadataPrefetcher(ComponentMetaDataResolver metaDataResolver, VersionSelectorScheme versionSelectorScheme, int maxPerBatch) {
+        this.metaDataResolver = metaDataResolver;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.maxPerBatch = maxPerBatch;
+    }
+
+    /**
+     * Records that the metadata of the given component is being downloaded by the traversal itself.
+     */
+    void downloading(ModuleComponentIdentifier id) {
+        seen.add(id);
+    }
+
+    /**
+     * Returns at most {@code maxPerBatch} components to download speculatively, looking ahead at the given nodes in order.
+     */
+    List<RunnableBuildOperation> selectDownloads(Collection<NodeState> queuedNodes) {
+        List<RunnableBuildOperation> downloads = new ArrayList<>();
+        for (NodeState node : queuedNodes) {
+            for (DependencyMetadata dependency : node.getDependenciesToVisit()) {
+                ModuleComponentIdentifier id = fixedVersionTarget(dependency);
+                if (id != null && seen.add(id) && !metaDataResolver.isFetchingMetadataCheap(id)) {
+                    downloads.add(new PrefetchMetadataOperation(id));
+                    if (downloads.size() == maxPerBatch) {
+                        return downloads;
+                    }
+                }
+            }
+        }
+        return downloads;
+    }
+
+    @Nullable
+    private ModuleComponentIdentifier fixedVersionTarget(DependencyMetadata dependency) {
+        // Skip anything whose metadata could be resolved differently than with the default overrides
+        if (dependency.isConstraint() || dependency.isChanging() || !dependency.getArtifacts().isEmpty()) {
+            return null;
+        }
+        ComponentSelector selector = dependency.getSelector();
+        if (!(selector instanceof ModuleComponentSelector)) {
+            return null;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+        VersionConstraint constraint = moduleSelector.getVersionConstraint();
+        String version = constraint.getRequiredVersion();
+        if (version.isEmpty() || constraint.getBranch() != null || !constraint.getPreferredVersion().isEmpty() || !constraint.getRejectedVersions().isEmpty()) {
+            return null;
+        }
+        if (!constraint.getStrictVersion().isEmpty() && !constraint.getStrictVersion().equals(version)) {
+            return null;
+        }
+        if (versionSelectorScheme.parseSelector(version).isDynamic()) {
+            return null;
+        }
+        return DefaultModuleComponentIdentifier.newId(moduleSelector.getModuleIdentifier(), version);
+    }
+
+    private class PrefetchMetadataOperation implements RunnableBuildOperation {
+        private final ModuleComponentIdentifier id;
+
+        PrefetchMetadataOperation(ModuleComponentIdentifier id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            try {
+                metaDataResolver.resolve(id, DefaultComponentOverrideMetadata.EMPTY, new DefaultBuildableComponentResolveResult());
+            } catch (RuntimeException e) {
+                // The component may never be selected, so report any failure when it is actually resolved
+                LOGGER.debug("Failed to prefetch metadata for {}.", id, e);
+            }
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Prefetch " + id);
+        }
+    }
+}
@@ -237,6 +237,17 @@ public boolean isTransitive() {
         return isTransitive;
     }
 
+    /**
+     * Returns the dependencies that are expected to be traversed when this node is first visited, without changing the state of the node.
+     * Returns an empty list when this node has already been traversed or is not expected to be traversed.
+     */
+    public List<? extends DependencyMetadata> getDependenciesToVisit() {
+        if (previousTraversalExclusions != null || !component.isSelected() || (transitiveEdgeCount == 0 && !isRoot())) {
+            return Collections.emptyList();
+        }
+        return getAllDependencies();
+    }
+
     /**
      * Visits all of the dependencies that originate on this node, adding them as outgoing edges.
      * The {@link #outgoingEdges} collection is populated, as is the `discoveredEdges` parameter.
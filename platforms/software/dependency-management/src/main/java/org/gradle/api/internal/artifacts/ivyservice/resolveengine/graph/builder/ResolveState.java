@@ -54,6 +54,7 @@
 import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
@@ -229,6 +230,13 @@ public NodeState pop() {
         return next.dequeue();
     }
 
+    /**
+     * Returns the nodes waiting to be visited, in the order they will be visited.
+     */
+    public Collection<NodeState> getQueuedNodes() {
+        return Collections.unmodifiableCollection(queue);
+    }
+
     /**
      * Called when a change is made to a configuration node, such that its dependency graph <em>may</em> now be larger than it previously was, and the node should be visited.
      */
@@ -26,6 +26,7 @@
 import org.gradle.cache.internal.ProducerGuard;
 import org.gradle.internal.hash.ChecksumService;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.HashFunction;
 import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.resource.ExternalResource;
 import org.gradle.internal.resource.ExternalResourceName;
@@ -47,6 +48,8 @@
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
 
 public class DefaultCacheAwareExternalResourceAccessor implements CacheAwareExternalResourceAccessor {
 
@@ -175,7 +178,7 @@ private LocallyAvailableExternalResource copyCandidateToCache(ExternalResourceNa
             if (!localChecksum.equals(remoteChecksum)) {
                 return null;
             }
-            return moveIntoCache(source, destination, fileStore, remoteMetaData);
+            return moveIntoCache(source, destination, Collections.singletonMap(Hashing.sha1(), localChecksum), fileStore, remoteMetaData);
         } finally {
             destination.delete();
         }
@@ -184,7 +187,7 @@ private LocallyAvailableExternalResource copyCandidateToCache(ExternalResourceNa
     @Nullable
     private LocallyAvailableExternalResource copyToCache(final ExternalResourceName source, final ResourceFileStore fileStore, final ExternalResource resource) {
         // Download to temporary location
-        DownloadAction downloadAction = new DownloadAction(source, temporaryFileProvider, LOGGER);
+        DownloadAction downloadAction = new DownloadAction(source, temporaryFileProvider, LOGGER, checksumService.getRequestedHashFunctions());
         resource.withContentIfPresent(downloadAction);
         if (downloadAction.getMetaData() == null) {
             return null;
@@ -192,16 +195,17 @@ private LocallyAvailableExternalResource copyToCache(final ExternalResourceName
 
         // Move into cache
         try {
-            return moveIntoCache(source, downloadAction.getDestination(), fileStore, downloadAction.getMetaData());
+            return moveIntoCache(source, downloadAction.getDestination(), downloadAction.getChecksums(), fileStore, downloadAction.getMetaData());
         } finally {
             downloadAction.getDestination().delete();
         }
     }
 
-    private LocallyAvailableExternalResource moveIntoCache(final ExternalResourceName source, final File destination, final ResourceFileStore fileStore, final ExternalResourceMetaData metaData) {
+    private LocallyAvailableExternalResource moveIntoCache(final ExternalResourceName source, final File destination, final Map<HashFunction, HashCode> checksums, final ResourceFileStore fileStore, final ExternalResourceMetaData metaData) {
         return cacheAccessCoordinator.useCache(() -> {
-            LocallyAvailableResource cachedResource = fileStore.moveIntoCache(destination);
+            LocallyAvailableResource cachedResource = fileStore.moveIntoCache(destination, checksums.get(Hashing.sha1()));
             File fileInFileStore = cachedResource.getFile();
+            checksums.forEach((hashFunction, checksum) -> checksumService.recordChecksum(fileInFileStore, hashFunction, checksum));
             cachedExternalResourceIndex.store(source.toString(), fileInFileStore, metaData);
             return fileResourceRepository.resource(fileInFileStore, source.getUri(), metaData);
         });
@@ -16,8 +16,13 @@
 
 package org.gradle.internal.resource.transfer;
 
+import com.google.common.collect.ImmutableMap;
 import org.apache.commons.io.IOUtils;
 import org.gradle.api.internal.file.temp.TemporaryFileProvider;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.HashFunction;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.HashingOutputStream;
 import org.gradle.internal.resource.ExternalResource;
 import org.gradle.internal.resource.ExternalResourceName;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
@@ -30,19 +35,34 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class DownloadAction implements ExternalResource.ContentAndMetadataAction<Object> {
     private File destination;
     private ExternalResourceMetaData metaData;
+    private Map<HashFunction, HashCode> checksums = Collections.emptyMap();
     private final ExternalResourceName source;
     private final TemporaryFileProvider temporaryFileProvider;
     @Nullable
     private final Logger logger;
+    private final Collection<HashFunction> hashFunctions;
 
     public DownloadAction(ExternalResourceName source, TemporaryFileProvider temporaryFileProvider, @Nullable Logger logger) {
+        this(source, temporaryFileProvider, logger, Collections.emptyList());
+    }
+
+    /**
+     * Creates an action that also computes checksums of the downloaded content with the given hash functions, in addition to SHA-1.
+     */
+    public DownloadAction(ExternalResourceName source, TemporaryFileProvider temporaryFileProvider, @Nullable Logger logger, Collection<HashFunction> hashFunctions) {
         this.source = source;
         this.temporaryFileProvider = temporaryFileProvider;
         this.logger = logger;
+        this.hashFunctions = hashFunctions;
     }
 
     @Override
@@ -55,9 +75,24 @@ public Object execute(InputStream inputStream, ExternalResourceMetaData metaData
         if (destination.getParentFile() != null) {
             GFileUtils.mkdirs(destination.getParentFile());
         }
-        try (FileOutputStream outputStream = new FileOutputStream(destination)) {
-            IOUtils.copyLarge(inputStream, outputStream);
+        // Hash the content while writing it, so that neither the file store nor the checksum service need to read it again
+        Map<HashFunction, HashingOutputStream> hashingStreams = new LinkedHashMap<>();
+        OutputStream outputStream = new FileOutputStream(destination);
+        for (HashFunction hashFunction : hashFunctions) {
+            if (hashFunction != Hashing.sha1() && !hashingStreams.containsKey(hashFunction)) {
+                HashingOutputStream hashingStream = new HashingOutputStream(hashFunction, outputStream);
+                hashingStreams.put(hashFunction, hashingStream);
+                outputStream = hashingStream;
+            }
         }
+        HashingOutputStream sha1Stream = new HashingOutputStream(Hashing.sha1(), outputStream);
+        try (OutputStream stream = sha1Stream) {
+            IOUtils.copyLarge(inputStream, stream);
+        }
+        ImmutableMap.Builder<HashFunction, HashCode> builder = ImmutableMap.builder();
+        builder.put(Hashing.sha1(), sha1Stream.hash());
+        hashingStreams.forEach((hashFunction, hashingStream) -> builder.put(hashFunction, hashingStream.hash()));
+        checksums = builder.build();
         return null;
     }
 
@@ -70,4 +105,19 @@ public File getDestination() {
     public ExternalResourceMetaData getMetaData() {
         return metaData;
     }
+
+    /**
+     * Returns the SHA-1 hash of the downloaded content, or null if nothing was downloaded.
+     */
+    @Nullable
+    public HashCode getSha1() {
+        return checksums.get(Hashing.sha1());
+    }
+
+    /**
+     * Returns the checksums of the downloaded content, including SHA-1, or an empty map if nothing was downloaded.
+     */
+    public Map<HashFunction, HashCode> getChecksums() {
+        return checksums;
+    }
 }
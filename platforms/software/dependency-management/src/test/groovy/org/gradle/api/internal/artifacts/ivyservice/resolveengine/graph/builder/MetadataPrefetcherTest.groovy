@@ -0,0 +1,96 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.dependencies.DefaultImmutableVersionConstraint
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.component.model.DependencyMetadata
+import org.gradle.internal.component.model.IvyArtifactName
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
+import spock.lang.Specification
+
+class MetadataPrefetcherTest extends Specification {
+    def metaDataResolver = Mock(ComponentMetaDataResolver)
+    def prefetcher = new MetadataPrefetcher(metaDataResolver, new DefaultVersionSelectorScheme(new DefaultVersionComparator(), new VersionParser()), 2)
+
+    def "prefetches fixed version dependencies of queued nodes"() {
+        given:
+        def node = node(dependency("a", "1.0"), dependency("b", "[1.0,2.0)"), dependency("c", "latest.release"), dependency("d", "1.0", true), dependency("e", "2.0"))
+        metaDataResolver.isFetchingMetadataCheap(_) >> false
+
+        when:
+        def downloads = prefetcher.selectDownloads([node])
+        downloads*.run(Stub(BuildOperationContext))
+
+        then:
+        downloads.size() == 2
+        1 * metaDataResolver.resolve(id("a", "1.0"), _, _)
+        1 * metaDataResolver.resolve(id("e", "2.0"), _, _)
+        0 * metaDataResolver.resolve(_, _, _)
+    }
+
+    def "does not prefetch components already downloaded or cheap to fetch"() {
+        given:
+        def node = node(dependency("a", "1.0"), dependency("b", "1.0"), dependency("c", "1.0"))
+        metaDataResolver.isFetchingMetadataCheap(id("b", "1.0")) >> true
+        metaDataResolver.isFetchingMetadataCheap(_) >> false
+        prefetcher.downloading(id("a", "1.0"))
+
+        expect:
+        prefetcher.selectDownloads([node]).collect { it.description().build().displayName } == ["Prefetch org:c:1.0"]
+        prefetcher.selectDownloads([node]).empty
+    }
+
+    def "prefetch failures do not propagate"() {
+        given:
+        metaDataResolver.isFetchingMetadataCheap(_) >> false
+        metaDataResolver.resolve(_, _, _) >> { throw new RuntimeException("broken") }
+        def downloads = prefetcher.selectDownloads([node(dependency("a", "1.0"))])
+
+        when:
+        downloads*.run(Stub(BuildOperationContext))
+
+        then:
+        noExceptionThrown()
+    }
+
+    private NodeState node(DependencyMetadata... dependencies) {
+        return Stub(NodeState) {
+            getDependenciesToVisit() >> (dependencies as List)
+        }
+    }
+
+    private DependencyMetadata dependency(String name, String version, boolean changing = false) {
+        def selector = DefaultModuleComponentSelector.newSelector(DefaultModuleIdentifier.newId("org", name), DefaultImmutableVersionConstraint.of(version))
+        return Stub(DependencyMetadata) {
+            getSelector() >> selector
+            isChanging() >> changing
+            getArtifacts() >> ([] as List<IvyArtifactName>)
+        }
+    }
+
+    private static id(String name, String version) {
+        return DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", name), version)
+    }
+}
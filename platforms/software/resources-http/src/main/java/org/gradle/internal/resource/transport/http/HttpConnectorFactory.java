@@ -30,6 +30,11 @@
 import java.util.Set;
 
 public class HttpConnectorFactory implements ResourceConnectorFactory {
+    /**
+     * The maximum number of concurrent connections used to access a single repository. Each repository has its own connection pool.
+     */
+    public static final String MAX_CONNECTIONS_PER_REPOSITORY_SYSTEM_PROPERTY = "org.gradle.internal.http.maxConnectionsPerRepository";
+
     private final static Set<String> SUPPORTED_PROTOCOLS = ImmutableSet.of("http", "https");
     private final static Set<Class<? extends Authentication>> SUPPORTED_AUTHENTICATION = ImmutableSet.of(
         BasicAuthentication.class,
@@ -58,12 +63,15 @@ public Set<Class<? extends Authentication>> getSupportedAuthentication() {
 
     @Override
     public ExternalResourceConnector createResourceConnector(ResourceConnectorSpecification connectionDetails) {
-        HttpClientHelper http = httpClientHelperFactory.create(DefaultHttpSettings.builder()
+        DefaultHttpSettings.Builder settings = DefaultHttpSettings.builder()
             .withAuthenticationSettings(connectionDetails.getAuthentications())
             .withSslContextFactory(sslContextFactory)
-            .withRedirectVerifier(connectionDetails.getRedirectVerifier())
-            .build()
-        );
+            .withRedirectVerifier(connectionDetails.getRedirectVerifier());
+        Integer maxConnections = Integer.getInteger(MAX_CONNECTIONS_PER_REPOSITORY_SYSTEM_PROPERTY);
+        if (maxConnections != null && maxConnections > 0) {
+            settings.maxConnTotal(maxConnections).maxConnPerRoute(maxConnections);
+        }
+        HttpClientHelper http = httpClientHelperFactory.create(settings.build());
         HttpResourceAccessor accessor = new HttpResourceAccessor(http);
         HttpResourceLister lister = new HttpResourceLister(accessor);
         HttpResourceUploader uploader = new HttpResourceUploader(http);
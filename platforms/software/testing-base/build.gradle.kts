@@ -1,5 +1,6 @@
 plugins {
     id("gradlebuild.distribution.api-java")
+    id("gradlebuild.jmh")
 }
 
 gradlebuildJava.usedInWorkers()
@@ -11,6 +12,13 @@ testing-related abstract base types and interfaces for things like Test tasks, l
 This project is a implementation dependency of many other testing-related subprojects in the Gradle build.
 """
 
+/**
+ * Use Java 8 compatibility for JMH benchmarks
+ */
+tasks.named<JavaCompile>("jmhCompileGeneratedClasses") {
+    options.release = 8
+}
+
 dependencies {
     implementation(project(":base-services"))
     implementation(project(":messaging"))
@@ -53,6 +61,9 @@ dependencies {
         because("ProjectBuilder tests load services from a Gradle distribution.")
     }
     integTestDistributionRuntimeOnly(project(":distributions-core"))
+
+    jmhImplementation(testFixtures(project(":core")))
+    jmhImplementation(platform(project(":distributions-dependencies")))
 }
 
 strictCompile {
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.report;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.junit.result.InMemoryTestResultsProvider;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestOutputStore;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.api.tasks.testing.TestResult;
+import org.gradle.internal.operations.BuildOperationConstraint;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.MultipleBuildOperationFailures;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.operations.TestBuildOperationExecutor;
+import org.gradle.util.internal.GFileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures the generation of the HTML test report for large result sets, with the pages rendered by the given number of threads.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class HtmlTestReportBenchmark {
+    private static final int TESTS_PER_CLASS = 10;
+    private static final int CLASSES_PER_PACKAGE = 100;
+
+    @Param({"10000"})
+    int classCount;
+
+    @Param({"1", "8"})
+    int threads;
+
+    private File tmpDir;
+    private InMemoryTestResultsProvider resultsProvider;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tmpDir = Files.createTempDirectory("test-report").toFile();
+        File resultsDir = new File(tmpDir, "results");
+        GFileUtils.mkdirs(resultsDir);
+
+        TestOutputStore outputStore = new TestOutputStore(resultsDir);
+        TestOutputStore.Writer outputWriter = outputStore.writer();
+        List<TestClassResult> results = new ArrayList<>(classCount);
+        long id = 1;
+        for (int i = 0; i < classCount; i++) {
+            TestClassResult classResult = new TestClassResult(id++, "org.gradle.sample" + (i / CLASSES_PER_PACKAGE) + ".SampleTest" + i, 0);
+            for (int j = 0; j < TESTS_PER_CLASS; j++) {
+                boolean failed = j == 0 && i % 10 == 0;
+                TestMethodResult methodResult = new TestMethodResult(id++, "test" + j, failed ? TestResult.ResultType.FAILURE : TestResult.ResultType.SUCCESS, 12, 0);
+                if (failed) {
+                    methodResult.addFailure("java.lang.AssertionError: expected <1> but was <2>", "java.lang.AssertionError: expected <1> but was <2>\n\tat org.gradle.sample.SampleTest.test0(SampleTest.java:42)\n", "java.lang.AssertionError");
+                }
+                outputWriter.onOutput(classResult.getId(), methodResult.getId(), new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, "Running " + methodResult.getName() + " with <some> & \"quoted\" output\n"));
+                classResult.add(methodResult);
+            }
+            results.add(classResult);
+        }
+        outputWriter.close();
+
+        resultsProvider = new InMemoryTestResultsProvider(results, outputStore);
+        executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        resultsProvider.close();
+        GFileUtils.deleteDirectory(tmpDir);
+    }
+
+    @Benchmark
+    public void generateReport() {
+        new DefaultTestReport(new ParallelBuildOperationExecutor(executor)).generateReport(resultsProvider, new File(tmpDir, "report"));
+    }
+
+    /**
+     * Runs the operations of a queue using the given executor, without any of the bookkeeping of the real build operation executor.
+     */
+    private static class ParallelBuildOperationExecutor extends TestBuildOperationExecutor {
+        private final ExecutorService executor;
+
+        ParallelBuildOperationExecutor(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public <O extends RunnableBuildOperation> void runAll(Action<BuildOperationQueue<O>> schedulingAction, BuildOperationConstraint buildOperationConstraint) {
+            ExecutorBackedQueue<O> queue = new ExecutorBackedQueue<>(executor);
+            schedulingAction.execute(queue);
+            queue.waitForCompletion();
+        }
+    }
+
+    private static class ExecutorBackedQueue<O extends RunnableBuildOperation> implements BuildOperationQueue<O> {
+        private final ExecutorService executor;
+        private final List<Future<?>> operations = new ArrayList<>();
+
+        ExecutorBackedQueue(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void add(O operation) {
+            operations.add(executor.submit(() -> operation.run(NoOpBuildOperationContext.INSTANCE)));
+        }
+
+        @Override
+        public void cancel() {
+            operations.forEach(operation -> operation.cancel(false));
+        }
+
+        @Override
+        public void waitForCompletion() throws MultipleBuildOperationFailures {
+            try {
+                for (Future<?> operation : operations) {
+                    operation.get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void setLogLocation(String logLocation) {
+        }
+    }
+
+    private enum NoOpBuildOperationContext implements BuildOperationContext {
+        INSTANCE;
+
+        @Override
+        public void failed(@Nullable Throwable failure) {
+        }
+
+        @Override
+        public void setResult(@Nullable Object result) {
+        }
+
+        @Override
+        public void setStatus(String status) {
+        }
+
+        @Override
+        public void progress(String status) {
+        }
+
+        @Override
+        public void progress(long progress, long total, String units, String status) {
+        }
+    }
+}
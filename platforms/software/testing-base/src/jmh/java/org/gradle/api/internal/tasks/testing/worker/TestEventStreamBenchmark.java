@@ -0,0 +1,147 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.worker;
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent;
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.api.internal.tasks.testing.TestStartEvent;
+import org.gradle.api.tasks.testing.TestFailure;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.id.CompositeIdGenerator;
+import org.gradle.internal.id.UUIDGenerator;
+import org.gradle.internal.remote.ConnectionAcceptor;
+import org.gradle.internal.remote.ObjectConnection;
+import org.gradle.internal.remote.internal.hub.MessageHubBackedClient;
+import org.gradle.internal.remote.internal.hub.MessageHubBackedServer;
+import org.gradle.internal.remote.internal.inet.InetAddressFactory;
+import org.gradle.internal.remote.internal.inet.TcpIncomingConnector;
+import org.gradle.internal.remote.internal.inet.TcpOutgoingConnector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Measures the throughput of test output events sent by a test worker to the build process over a loopback connection,
+ * through the same messaging hub and serializers as the {@link TestResultProcessor} of a {@link RemoteTestClassProcessor}.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class TestEventStreamBenchmark {
+    private static final int EVENTS_PER_INVOCATION = 10000;
+    private static final Object TEST_ID = new CompositeIdGenerator.CompositeId(1L, 1L);
+
+    @Param({"16", "256"})
+    int messageLength;
+
+    private final CountingResultProcessor receiver = new CountingResultProcessor();
+    private DefaultExecutorFactory executorFactory;
+    private ConnectionAcceptor acceptor;
+    private ObjectConnection buildConnection;
+    private ObjectConnection workerConnection;
+    private TestResultProcessor sender;
+    private TestOutputEvent event;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        executorFactory = new DefaultExecutorFactory();
+        BlockingQueue<ObjectConnection> accepted = new ArrayBlockingQueue<>(1);
+        acceptor = new MessageHubBackedServer(new TcpIncomingConnector(executorFactory, new InetAddressFactory(), new UUIDGenerator()), executorFactory).accept(connection -> {
+            connection.useParameterSerializers(TestEventSerializer.create());
+            connection.addIncoming(TestResultProcessor.class, receiver);
+            connection.connect();
+            accepted.add(connection);
+        });
+        workerConnection = new MessageHubBackedClient(new TcpOutgoingConnector(), executorFactory).getConnection(acceptor.getAddress());
+        workerConnection.useParameterSerializers(TestEventSerializer.create());
+        sender = workerConnection.addOutgoing(TestResultProcessor.class);
+        workerConnection.connect();
+        buildConnection = accepted.take();
+
+        char[] message = new char[messageLength];
+        Arrays.fill(message, 'x');
+        event = new DefaultTestOutputEvent(TestOutputEvent.Destination.StdOut, new String(message));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        CompositeStoppable.stoppable(workerConnection, buildConnection, acceptor, executorFactory).stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+    public void sendOutputEvents() throws InterruptedException {
+        long expected = receiver.expect(EVENTS_PER_INVOCATION);
+        for (int i = 0; i < EVENTS_PER_INVOCATION; i++) {
+            sender.output(TEST_ID, event);
+        }
+        receiver.await(expected);
+    }
+
+    private static class CountingResultProcessor implements TestResultProcessor {
+        private long expected;
+        private long received;
+
+        synchronized long expect(int count) {
+            expected += count;
+            return expected;
+        }
+
+        synchronized void await(long count) throws InterruptedException {
+            while (received < count) {
+                wait();
+            }
+        }
+
+        @Override
+        public synchronized void output(Object testId, TestOutputEvent event) {
+            received++;
+            if (received == expected) {
+                notifyAll();
+            }
+        }
+
+        @Override
+        public void started(TestDescriptorInternal test, TestStartEvent event) {
+        }
+
+        @Override
+        public void completed(Object testId, TestCompleteEvent event) {
+        }
+
+        @Override
+        public void failure(Object testId, TestFailure result) {
+        }
+    }
+}
@@ -36,6 +36,7 @@
 import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -83,6 +84,7 @@ public class Writer implements Closeable {
         private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
 
         public Writer() {
+            discardIndex();
             try {
                 output = new KryoBackedEncoder(new FileOutputStream(getOutputsFile()));
             } catch (FileNotFoundException e) {
@@ -179,116 +181,169 @@ public Writer writer() {
         return new Writer();
     }
 
+    /**
+     * The regions of the output of all classes, loaded once and shared by all open readers of this store.
+     * The index is released when the last reader is closed.
+     *
+     * Each class keeps the identifiers of its tests and their regions in flat arrays rather than an object per test,
+     * so that the index stays small for test runs with many test cases.
+     */
     private static class Index {
-        final ImmutableMap<Long, Index> children;
+        final ImmutableMap<Long, ClassIndex> classes;
+
+        private Index(ImmutableMap<Long, ClassIndex> classes) {
+            this.classes = classes;
+        }
+    }
+
+    private static class ClassIndex {
         final Region stdOut;
         final Region stdErr;
+        // Sorted
+        final long[] testIds;
+        // For each test: stdout start, stdout stop, stderr start, stderr stop
+        final long[] testRegions;
 
-        private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
+        private ClassIndex(Region stdOut, Region stdErr, long[] testIds, long[] testRegions) {
             this.stdOut = stdOut;
             this.stdErr = stdErr;
+            this.testIds = testIds;
+            this.testRegions = testRegions;
         }
 
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
-            this.children = children;
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+        @Nullable
+        Region getRegion(long testId, boolean stdout) {
+            if (testId == 0) {
+                return stdout ? stdOut : stdErr;
+            }
+            int pos = Arrays.binarySearch(testIds, testId);
+            if (pos < 0) {
+                return null;
+            }
+            int offset = pos * 4 + (stdout ? 0 : 2);
+            return new Region(testRegions[offset], testRegions[offset + 1]);
         }
-    }
-
-    private static class IndexBuilder {
-        final Region stdOut = new Region();
-        final Region stdErr = new Region();
 
-        private final ImmutableMap.Builder<Long, Index> children = ImmutableMap.builder();
-
-        void add(long key, Index index) {
-            if (stdOut.start < 0) {
-                stdOut.start = index.stdOut.start;
+        static ClassIndex read(Input input) {
+            int numEntries = input.readInt(true);
+            long[][] entries = new long[numEntries][];
+            Region stdOut = new Region();
+            Region stdErr = new Region();
+            for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
+                long[] entry = new long[]{input.readLong(true), input.readLong(), input.readLong(), input.readLong(), input.readLong()};
+                include(stdOut, entry[1], entry[2]);
+                include(stdErr, entry[3], entry[4]);
+                entries[entryCounter] = entry;
+            }
+            Arrays.sort(entries, (left, right) -> Long.compare(left[0], right[0]));
+            long[] testIds = new long[numEntries];
+            long[] testRegions = new long[numEntries * 4];
+            for (int i = 0; i < numEntries; i++) {
+                testIds[i] = entries[i][0];
+                System.arraycopy(entries[i], 1, testRegions, i * 4, 4);
             }
-            if (stdErr.start < 0) {
-                stdErr.start = index.stdErr.start;
+            return new ClassIndex(stdOut, stdErr, testIds, testRegions);
+        }
+
+        private static void include(Region region, long start, long stop) {
+            if (region.start < 0) {
+                region.start = start;
             }
-            if (index.stdOut.stop > stdOut.stop) {
-                stdOut.stop = index.stdOut.stop;
+            if (stop > region.stop) {
+                region.stop = stop;
             }
-            if (index.stdErr.stop > stdErr.stop) {
-                stdErr.stop = index.stdErr.stop;
+        }
+    }
+
+    @Nullable
+    private Index index;
+    private int openReaders;
+
+    /**
+     * Returns the index of the output file, or null when there is no output.
+     * Each non-null index returned must be released using {@link #releaseIndex()}.
+     */
+    @Nullable
+    private synchronized Index loadIndex() {
+        File indexFile = getIndexFile();
+        File outputsFile = getOutputsFile();
+
+        if (!outputsFile.exists()) {
+            if (indexFile.exists()) {
+                throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
             }
+            return null;
+        }
+        if (!indexFile.exists()) {
+            throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
+        }
+        openReaders++;
+        if (index != null) {
+            return index;
+        }
 
-            children.put(key, index);
+        Input input;
+        try {
+            input = new Input(new FileInputStream(indexFile));
+        } catch (FileNotFoundException e) {
+            throw new UncheckedIOException(e);
         }
 
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
+        try {
+            int numClasses = input.readInt(true);
+            ImmutableMap.Builder<Long, ClassIndex> classes = ImmutableMap.builderWithExpectedSize(numClasses);
+            for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
+                long classId = input.readLong(true);
+                classes.put(classId, ClassIndex.read(input));
+            }
+            index = new Index(classes.build());
+        } catch (RuntimeException e) {
+            openReaders--;
+            throw e;
+        } finally {
+            input.close();
         }
+        return index;
+    }
+
+    private synchronized void releaseIndex() {
+        if (--openReaders == 0) {
+            index = null;
+        }
+    }
+
+    private synchronized void discardIndex() {
+        index = null;
     }
 
     public class Reader implements Closeable {
         private final Index index;
         private final RandomAccessFile dataFile;
+        private boolean closed;
 
         public Reader() {
-            File indexFile = getIndexFile();
-            File outputsFile = getOutputsFile();
-
-            if (outputsFile.exists()) {
-                if (!indexFile.exists()) {
-                    throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
-                }
-
-                Input input;
-                try {
-                    input = new Input(new FileInputStream(indexFile));
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
-                }
-
-                IndexBuilder rootBuilder = null;
-                try {
-                    int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
-                    for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
-                        long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
-
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
-                            long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
-                        }
-
-                        rootBuilder.add(classId, classBuilder.build());
-                    }
-                } finally {
-                    input.close();
-                }
-
-                index = rootBuilder.build();
-
+            index = loadIndex();
+            if (index != null) {
                 try {
                     dataFile = new RandomAccessFile(getOutputsFile(), "r");
                 } catch (FileNotFoundException e) {
+                    releaseIndex();
                     throw new UncheckedIOException(e);
                 }
             } else { // no outputs file
-                if (indexFile.exists()) {
-                    throw new IllegalStateException(String.format("Test outputs data file '%s' does not exist but the index file '%s' does", outputsFile, indexFile));
-                }
-
-                index = null;
                 dataFile = null;
             }
         }
 
         @Override
         public void close() throws IOException {
-            if (dataFile != null) {
-                dataFile.close();
+            if (dataFile != null && !closed) {
+                closed = true;
+                try {
+                    dataFile.close();
+                } finally {
+                    releaseIndex();
+                }
             }
         }
 
@@ -301,13 +356,8 @@ public boolean hasOutput(long classId, long testId, TestOutputEvent.Destination
                 return false;
             }
 
-            Index index = getIndex(classId, testId);
-            if (index == null) {
-                return false;
-            } else {
-                Region region = destination == TestOutputEvent.Destination.StdOut ? index.stdOut : index.stdErr;
-                return region.start >= 0;
-            }
+            Region region = getRegion(classId, testId, destination == TestOutputEvent.Destination.StdOut);
+            return region != null && region.start >= 0;
         }
 
         public void writeAllOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
@@ -327,15 +377,10 @@ private void doRead(long classId, long testId, boolean allClassOutput, TestOutpu
                 return;
             }
 
-            Index targetIndex = getIndex(classId, testId);
-            if (targetIndex == null) {
-                return;
-            }
-
             boolean stdout = destination == TestOutputEvent.Destination.StdOut;
-            Region region = stdout ? targetIndex.stdOut : targetIndex.stdErr;
+            Region region = getRegion(classId, testId, stdout);
 
-            if (region.start < 0) {
+            if (region == null || region.start < 0) {
                 return;
             }
 
@@ -391,12 +436,9 @@ private void doRead(long classId, long testId, boolean allClassOutput, TestOutpu
         }
 
         @Nullable
-        private Index getIndex(long classId, long testId) {
-            Index targetIndex = index.children.get(classId);
-            if (targetIndex != null && testId != 0) {
-                targetIndex = targetIndex.children.get(testId);
-            }
-            return targetIndex;
+        private Region getRegion(long classId, long testId, boolean stdout) {
+            ClassIndex classIndex = index.classes.get(classId);
+            return classIndex == null ? null : classIndex.getRegion(testId, stdout);
         }
     }
 
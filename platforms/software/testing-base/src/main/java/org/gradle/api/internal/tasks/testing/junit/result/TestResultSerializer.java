@@ -125,7 +125,7 @@ private void readResults(Decoder decoder, Action<? super TestClassResult> visito
     private TestClassResult readClassResult(Decoder decoder) throws IOException, ClassNotFoundException {
         long id = decoder.readSmallLong();
         String className = decoder.readString();
-        String classDisplayName = decoder.readString();
+        String classDisplayName = sameOrNew(className, decoder.readString());
         long startTime = decoder.readLong();
         TestClassResult result = new TestClassResult(id, className, classDisplayName, startTime);
         int testMethodCount = decoder.readSmallInt();
@@ -139,7 +139,7 @@ private TestClassResult readClassResult(Decoder decoder) throws IOException, Cla
     private TestMethodResult readMethodResult(Decoder decoder) throws ClassNotFoundException, IOException {
         long id = decoder.readSmallLong();
         String name = decoder.readString();
-        String displayName = decoder.readString();
+        String displayName = sameOrNew(name, decoder.readString());
         TestResult.ResultType resultType = TestResult.ResultType.values()[decoder.readSmallInt()];
         long duration = decoder.readSmallLong();
         long endTime = decoder.readLong();
@@ -153,4 +153,11 @@ private TestMethodResult readMethodResult(Decoder decoder) throws ClassNotFoundE
         }
         return methodResult;
     }
+
+    /**
+     * Most display names are the same as the name, so share the instance rather than keeping a copy of every name.
+     */
+    private static String sameOrNew(String name, String displayName) {
+        return displayName.equals(name) ? name : displayName;
+    }
 }
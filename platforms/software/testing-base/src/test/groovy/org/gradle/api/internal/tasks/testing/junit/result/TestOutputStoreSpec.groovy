@@ -76,6 +76,57 @@ class TestOutputStoreSpec extends WorkspaceTest {
         reader.close()
     }
 
+    def "readers find output of tests that wrote output out of order"() {
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 3, output(StdOut, "[out-1]"))
+        writer.onOutput(1, 2, output(StdOut, "[out-2]"))
+        writer.onOutput(1, output(StdErr, "[out-3]"))
+        writer.onOutput(1, 3, output(StdErr, "[out-4]"))
+        writer.close()
+        def reader1 = output.reader()
+        def reader2 = output.reader()
+
+        then:
+        collectOutput(reader1, 1, 2, StdOut) == "[out-2]"
+        collectOutput(reader1, 1, 3, StdOut) == "[out-1]"
+        collectOutput(reader2, 1, 3, StdErr) == "[out-4]"
+        collectOutput(reader2, 1, StdErr) == "[out-3]"
+        !reader2.hasOutput(1, 2, StdErr)
+
+        cleanup:
+        reader1?.close()
+        reader2?.close()
+    }
+
+    def "index is shared by open readers and released when the last reader is closed"() {
+        given:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "[out-1]"))
+        writer.close()
+
+        when:
+        def reader1 = output.reader()
+        def reader2 = output.reader()
+
+        then:
+        output.index != null
+
+        when:
+        reader1.close()
+        reader1.close()
+
+        then:
+        output.index != null
+        collectOutput(reader2, 1, 1, StdOut) == "[out-1]"
+
+        when:
+        reader2.close()
+
+        then:
+        output.index == null
+    }
+
     def "non-test output includes all events with the given class id and no method id"() {
         when:
         def writer = output.writer()
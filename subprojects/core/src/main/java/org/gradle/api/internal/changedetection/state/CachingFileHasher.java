@@ -98,6 +98,17 @@ private FileInfo snapshot(File file, long length, long timestamp) {
         return info;
     }
 
+    /**
+     * Records the hash of the given file, computed from its content elsewhere.
+     */
+    public void record(File file, HashCode hash) {
+        FileMetadata fileMetadata = fileSystem.stat(file);
+        String absolutePath = file.getAbsolutePath();
+        if (timestampInspector.timestampCanBeUsedToDetectFileChange(absolutePath, fileMetadata.getLastModified())) {
+            cache.put(stringInterner.intern(absolutePath), new FileInfo(hash, fileMetadata.getLength(), fileMetadata.getLastModified()));
+        }
+    }
+
     public void discard(String path) {
         cache.remove(path);
     }
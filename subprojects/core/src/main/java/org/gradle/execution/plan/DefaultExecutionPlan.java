@@ -24,6 +24,8 @@
 import org.gradle.api.specs.Specs;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 
+import javax.annotation.Nullable;
+
 import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.Collections;
@@ -57,6 +59,8 @@ public class DefaultExecutionPlan implements ExecutionPlan, QueryableExecutionPl
     private Spec<? super Task> filter = Specs.satisfyAll();
     private int order = 0;
     private boolean continueOnFailure;
+    @Nullable
+    private NodeExecutionDurations nodeDurations;
 
     private final Set<Node> filteredNodes = newIdentityHashSet();
     private final Set<Node> finalizers = new LinkedHashSet<>();
@@ -233,7 +237,7 @@ public FinalizedExecutionPlan finalizePlan() {
         if (finalizedPlan == null) {
             dependencyResolver.clear();
             // Should make an immutable copy of the contents to pass to the finalized plan and also to use in this instance
-            finalizedPlan = new DefaultFinalizedExecutionPlan(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, scheduledNodes, continueOnFailure, this, completionHandler);
+            finalizedPlan = new DefaultFinalizedExecutionPlan(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, scheduledNodes, continueOnFailure, this, completionHandler, nodeDurations);
         }
         return finalizedPlan;
     }
@@ -324,6 +328,11 @@ public void setContinueOnFailure(boolean continueOnFailure) {
         this.continueOnFailure = continueOnFailure;
     }
 
+    @Override
+    public void setNodeExecutionDurations(NodeExecutionDurations nodeDurations) {
+        this.nodeDurations = nodeDurations;
+    }
+
     @Override
     public int size() {
         return nodeMapping.getNumberOfPublicNodes();
@@ -35,11 +35,9 @@
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
@@ -67,7 +65,7 @@ public int compare(Node node1, Node node2) {
     };
 
     private final Set<Node> waitingToStartNodes = new HashSet<>();
-    private final ExecutionQueue readyNodes = new ExecutionQueue();
+    private final ExecutionQueue readyNodes;
     private final List<Throwable> failures = new ArrayList<>();
     private final List<DiagnosticEvent> diagnosticEvents = new ArrayList<>();
     private final String displayName;
@@ -84,6 +82,10 @@ public int compare(Node node1, Node node2) {
     private final Map<Pair<Node, Node>, Boolean> reachableCache = new HashMap<>();
     private final OrdinalNodeAccess ordinalNodeAccess;
     private final Consumer<LocalTaskNode> completionHandler;
+    @Nullable
+    private final NodeExecutionDurations nodeDurations;
+    private final Map<Node, Long> remainingCriticalPathMillis = new HashMap<>();
+    private final Map<Node, Long> executionStartTimes = new HashMap<>();
 
     // When true, there may be nodes that are both ready and "selectable", which means their project and resources are able to be locked
     // When false, there are definitely no nodes that are "selectable"
@@ -100,7 +102,8 @@ public DefaultFinalizedExecutionPlan(
         List<Node> scheduledNodes,
         boolean continueOnFailure,
         QueryableExecutionPlan contents,
-        Consumer<LocalTaskNode> completionHandler
+        Consumer<LocalTaskNode> completionHandler,
+        @Nullable NodeExecutionDurations nodeDurations
     ) {
         this.displayName = displayName;
         this.outputHierarchy = outputHierarchy;
@@ -110,6 +113,13 @@ public DefaultFinalizedExecutionPlan(
         this.continueOnFailure = continueOnFailure;
         this.contents = contents;
         this.completionHandler = completionHandler;
+        this.nodeDurations = nodeDurations;
+        if (nodeDurations != null) {
+            estimateRemainingCriticalPaths(scheduledNodes, nodeDurations);
+            this.readyNodes = new ExecutionQueue(criticalPathFirst(remainingCriticalPathMillis));
+        } else {
+            this.readyNodes = new ExecutionQueue(NODE_EXECUTION_ORDER);
+        }
 
         SetMultimap<FinalizerGroup, FinalizerGroup> reachableGroups = LinkedHashMultimap.create();
         for (Node node : scheduledNodes) {
@@ -129,6 +139,47 @@ public DefaultFinalizedExecutionPlan(
         lockCoordinator.addLockReleaseListener(resourceUnlockListener);
     }
 
+    /**
+     * Estimates, for each node, the time it takes to execute the node and the longest chain of nodes that depend on it.
+     * The scheduled nodes are ordered with dependencies first, so the nodes are visited after the nodes that depend on them.
+     */
+    private void estimateRemainingCriticalPaths(List<Node> scheduledNodes, NodeExecutionDurations nodeDurations) {
+        for (int i = scheduledNodes.size() - 1; i >= 0; i--) {
+            Node node = scheduledNodes.get(i);
+            long longestDependentPath = 0;
+            for (Node dependent : node.getDependencyPredecessors()) {
+                longestDependentPath = Math.max(longestDependentPath, remainingCriticalPathMillis.getOrDefault(dependent, 0L));
+            }
+            remainingCriticalPathMillis.put(node, nodeDurations.estimateMillis(node) + longestDependentPath);
+        }
+    }
+
+    /**
+     * Orders priority nodes first, then the nodes with the longest remaining critical path, then as per {@link #NODE_EXECUTION_ORDER}.
+     */
+    private static Comparator<Node> criticalPathFirst(Map<Node, Long> remainingCriticalPathMillis) {
+        return (node1, node2) -> {
+            if (node1.isPriority() == node2.isPriority()) {
+                int result = Long.compare(remainingCriticalPathMillis.getOrDefault(node2, 0L), remainingCriticalPathMillis.getOrDefault(node1, 0L));
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return NODE_EXECUTION_ORDER.compare(node1, node2);
+        };
+    }
+
+    /**
+     * Nodes added to the plan while it executes take the place of the node that added them.
+     */
+    private void inheritSchedulingFrom(Node node, Node addedNode) {
+        addedNode.setIndex(node.getIndex());
+        Long remaining = remainingCriticalPathMillis.get(node);
+        if (remaining != null) {
+            remainingCriticalPathMillis.put(addedNode, remaining);
+        }
+    }
+
     @Override
     public String getDisplayName() {
         return displayName;
@@ -147,9 +198,14 @@ public WorkSource<Node> asWorkSource() {
     @Override
     public void close() {
         lockCoordinator.removeLockReleaseListener(resourceUnlockListener);
+        if (nodeDurations != null) {
+            nodeDurations.flush();
+        }
         waitingToStartNodes.clear();
         readyNodes.clear();
         runningNodes.clear();
+        remainingCriticalPathMillis.clear();
+        executionStartTimes.clear();
         reachableCache.clear();
     }
 
@@ -185,7 +241,7 @@ public Diagnostics healthDiagnostics() {
             waitingToStartItems.add(node.healthDiagnostics());
         }
         List<String> readyToStartItems = new ArrayList<>(readyNodes.size());
-        for (Node node : readyNodes.nodes) {
+        for (Node node : readyNodes.getNodes()) {
             readyToStartItems.add(node.toString());
         }
         List<String> otherWaitingItems = new ArrayList<>();
@@ -261,7 +317,7 @@ public Selection<Node> selectNext() {
                 if (node.hasPendingPreExecutionNodes()) {
                     // The node is ready to execute and its pre-execution nodes have not been scheduled, so do this now
                     node.visitPreExecutionNodes(prepareNode -> {
-                        prepareNode.setIndex(node.getIndex());
+                        inheritSchedulingFrom(node, prepareNode);
                         prepareNode.require();
                         prepareNode.updateAllDependenciesComplete();
                         node.addDependencySuccessor(prepareNode);
@@ -373,6 +429,7 @@ private boolean tryLockProjectFor(Node node, List<ResourceLock> resources) {
             resources.add(toLock);
             return true;
         } else {
+            readyNodes.resourceUnavailable(toLock);
             return false;
         }
     }
@@ -387,6 +444,7 @@ private void unlockProjectFor(Node node) {
     private boolean tryLockSharedResourceFor(Node node, List<ResourceLock> resources) {
         for (ResourceLock resource : node.getResourcesToLock()) {
             if (!resource.tryLock()) {
+                readyNodes.resourceUnavailable(resource);
                 return false;
             }
             resources.add(resource);
@@ -506,6 +564,9 @@ private boolean doesConsumerDependOnDestroyer(Node consumer, Node destroyer) {
 
     private void recordNodeExecutionStarted(Node node) {
         runningNodes.add(node);
+        if (nodeDurations != null) {
+            executionStartTimes.put(node, System.currentTimeMillis());
+        }
     }
 
     private void recordNodeCompleted(Node node) {
@@ -560,13 +621,17 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
             }
 
             node.finishExecution(this::recordNodeCompleted);
+            Long startTime = executionStartTimes.remove(node);
+            if (nodeDurations != null && startTime != null) {
+                nodeDurations.record(node, System.currentTimeMillis() - startTime);
+            }
             if (node.isFailed()) {
                 LOGGER.debug("Node {} failed", node);
                 handleFailure(node);
             } else {
                 LOGGER.debug("Node {} finished executing", node);
                 node.visitPostExecutionNodes(postNode -> {
-                    postNode.setIndex(node.getIndex());
+                    inheritSchedulingFrom(node, postNode);
                     postNode.require();
                     postNode.updateAllDependenciesComplete();
                     addNodeToPlan(postNode);
@@ -596,7 +661,7 @@ private void maybeNodeReady(Node node) {
     private void maybeWaitingForNewNode(Node node, String whenAdded) {
         // Add some diagnostics to track down sporadic issue
         if (node instanceof OrdinalNode) {
-            diagnosticEvents.add(new NodeAdded(node, whenAdded, readyNodes.nodes.contains(node)));
+            diagnosticEvents.add(new NodeAdded(node, whenAdded, readyNodes.contains(node)));
         }
         if (node.getDependencyPredecessors().isEmpty()) {
             waitingForNode(node, whenAdded, null);
@@ -606,7 +671,7 @@ private void maybeWaitingForNewNode(Node node, String whenAdded) {
     private void waitingForNode(Node node, String whenAdded, @Nullable Node waitingDueTo) {
         // Add some diagnostics to track down sporadic issue
         if (node instanceof OrdinalNode) {
-            diagnosticEvents.add(new WaitingForNode(node, waitingDueTo, whenAdded, readyNodes.nodes.contains(node)));
+            diagnosticEvents.add(new WaitingForNode(node, waitingDueTo, whenAdded, readyNodes.contains(node)));
         }
         waitingToStartNodes.add(node);
     }
@@ -678,66 +743,6 @@ public boolean allExecutionComplete() {
         return waitingToStartNodes.isEmpty() && runningNodes.isEmpty();
     }
 
-    /**
-     * An ordered queue of nodes, sorted by {@link #NODE_EXECUTION_ORDER}.
-     */
-    static class ExecutionQueue {
-        private final Set<Node> nodes = new TreeSet<>(NODE_EXECUTION_ORDER);
-        private Iterator<Node> current;
-
-        public void clear() {
-            nodes.clear();
-            current = null;
-        }
-
-        public boolean isEmpty() {
-            return nodes.isEmpty();
-        }
-
-        public int size() {
-            return nodes.size();
-        }
-
-        public void restart() {
-            current = nodes.iterator();
-        }
-
-        public boolean hasNext() {
-            return current.hasNext();
-        }
-
-        /**
-         * Move to the next node.
-         */
-        public Node next() {
-            if (current == null) {
-                throw new IllegalStateException();
-            }
-            return current.next();
-        }
-
-        /**
-         * Remove the current node.
-         */
-        public void remove() {
-            current.remove();
-        }
-
-        public void removeAndRestart(Node node) {
-            nodes.remove(node);
-            restart();
-        }
-
-        /**
-         * Insert the given node.
-         */
-        public void insert(Node node) {
-            if (nodes.add(node)) {
-                current = null;
-            }
-        }
-    }
-
     private interface DiagnosticEvent {
         String message();
     }
@@ -36,6 +36,11 @@ public interface ExecutionPlan extends Describable, Closeable {
 
     void setContinueOnFailure(boolean continueOnFailure);
 
+    /**
+     * Uses the given durations to start the nodes on the longest remaining path of the plan first, rather than in plan order.
+     */
+    void setNodeExecutionDurations(NodeExecutionDurations nodeDurations);
+
     void setScheduledWork(ScheduledWork work);
 
     /**
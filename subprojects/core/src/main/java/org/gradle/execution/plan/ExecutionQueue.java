@@ -0,0 +1,284 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.NonNullApi;
+import org.gradle.internal.resources.DefaultLease;
+import org.gradle.internal.resources.LeaseHolder;
+import org.gradle.internal.resources.ResourceLock;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An ordered queue of ready nodes, iterated in the order defined by the given comparator.
+ *
+ * <p>The nodes are partitioned by the resource they require to start: the project lock when there is one,
+ * otherwise the first shared resource, otherwise no resource at all. A shared resource hands out a new lease to
+ * each node, so those nodes are partitioned by the holder of their lease. Each partition is ordered on its own and
+ * the partitions are indexed by their first node. An iteration pass merges the partitions lazily, so once
+ * {@link #resourceUnavailable(ResourceLock)} reports that the resource of a partition cannot be acquired, the
+ * remaining nodes of that partition are skipped without being visited for the rest of the pass.</p>
+ *
+ * <p>Inserting a node invalidates the current pass, which must be started again using {@link #restart()}.</p>
+ */
+@NonNullApi
+class ExecutionQueue {
+    private static final Object NO_RESOURCE = new Object();
+
+    private final Comparator<Node> order;
+    private final Map<Object, Partition> partitions = new HashMap<>();
+    private final Map<Node, Partition> partitionOfNode = new HashMap<>();
+    private final TreeMap<Node, Partition> partitionsByFirstNode;
+
+    private final PriorityQueue<Cursor> activeCursors;
+    private final Set<Object> unavailableResources = new HashSet<>();
+    private boolean passStarted;
+    private int pass;
+    @Nullable
+    private Node lastPulledFirstNode;
+    @Nullable
+    private Cursor currentCursor;
+    @Nullable
+    private Node currentNode;
+
+    ExecutionQueue(Comparator<Node> order) {
+        this.order = order;
+        this.partitionsByFirstNode = new TreeMap<>(order);
+        this.activeCursors = new PriorityQueue<>((left, right) -> order.compare(left.next, right.next));
+    }
+
+    public void clear() {
+        partitions.clear();
+        partitionOfNode.clear();
+        partitionsByFirstNode.clear();
+        invalidatePass();
+    }
+
+    public boolean isEmpty() {
+        return partitionOfNode.isEmpty();
+    }
+
+    public int size() {
+        return partitionOfNode.size();
+    }
+
+    public boolean contains(Node node) {
+        return partitionOfNode.containsKey(node);
+    }
+
+    /**
+     * Returns a snapshot of the nodes in this queue, in iteration order.
+     */
+    public List<Node> getNodes() {
+        List<Node> nodes = new ArrayList<>(partitionOfNode.keySet());
+        nodes.sort(order);
+        return nodes;
+    }
+
+    /**
+     * Starts a new iteration pass from the first node.
+     */
+    public void restart() {
+        invalidatePass();
+        pass++;
+        passStarted = true;
+    }
+
+    public boolean hasNext() {
+        if (!passStarted) {
+            throw new IllegalStateException();
+        }
+        return nextCursor() != null;
+    }
+
+    /**
+     * Move to the next node.
+     */
+    public Node next() {
+        if (!passStarted) {
+            throw new IllegalStateException();
+        }
+        Cursor cursor = nextCursor();
+        if (cursor == null) {
+            throw new IllegalStateException();
+        }
+        activeCursors.poll();
+        currentCursor = cursor;
+        currentNode = cursor.next;
+        return currentNode;
+    }
+
+    /**
+     * Remove the current node.
+     */
+    public void remove() {
+        if (currentNode == null) {
+            throw new IllegalStateException();
+        }
+        doRemove(currentNode);
+    }
+
+    public void removeAndRestart(Node node) {
+        doRemove(node);
+        restart();
+    }
+
+    /**
+     * Insert the given node.
+     */
+    public void insert(Node node) {
+        if (partitionOfNode.containsKey(node)) {
+            return;
+        }
+        Partition partition = partitions.computeIfAbsent(resourceFor(node), key -> new Partition(key, order));
+        Node previousFirst = partition.nodes.isEmpty() ? null : partition.nodes.first();
+        partition.nodes.add(node);
+        partitionOfNode.put(node, partition);
+        if (previousFirst == null || order.compare(node, previousFirst) < 0) {
+            if (previousFirst != null) {
+                partitionsByFirstNode.remove(previousFirst);
+            }
+            partitionsByFirstNode.put(node, partition);
+        }
+        invalidatePass();
+    }
+
+    /**
+     * Notifies this queue that the given resource cannot be acquired, so that the nodes which require it are skipped for the remainder of the current pass.
+     */
+    public void resourceUnavailable(ResourceLock resource) {
+        Object key = keyOf(resource);
+        unavailableResources.add(key);
+        if (currentCursor != null && currentCursor.partition.resource == key) {
+            currentCursor = null;
+        }
+    }
+
+    private static Object resourceFor(Node node) {
+        ResourceLock projectLock = node.getProjectToLock();
+        if (projectLock != null) {
+            return keyOf(projectLock);
+        }
+        List<? extends ResourceLock> resources = node.getResourcesToLock();
+        if (!resources.isEmpty()) {
+            return keyOf(resources.get(0));
+        }
+        return NO_RESOURCE;
+    }
+
+    private static Object keyOf(ResourceLock resource) {
+        if (resource instanceof DefaultLease) {
+            LeaseHolder leaseHolder = ((DefaultLease) resource).getLeaseHolder();
+            if (leaseHolder != null) {
+                return leaseHolder;
+            }
+        }
+        return resource;
+    }
+
+    private void doRemove(Node node) {
+        Partition partition = partitionOfNode.remove(node);
+        if (partition == null) {
+            return;
+        }
+        boolean wasFirst = partition.nodes.first() == node;
+        partition.nodes.remove(node);
+        if (wasFirst) {
+            partitionsByFirstNode.remove(node);
+            if (partition.nodes.isEmpty()) {
+                partitions.remove(partition.resource);
+            } else {
+                partitionsByFirstNode.put(partition.nodes.first(), partition);
+            }
+        }
+    }
+
+    private void invalidatePass() {
+        passStarted = false;
+        activeCursors.clear();
+        unavailableResources.clear();
+        lastPulledFirstNode = null;
+        currentCursor = null;
+        currentNode = null;
+    }
+
+    /**
+     * Returns the cursor positioned at the next node of the pass, leaving it at the head of the active cursors.
+     */
+    @Nullable
+    private Cursor nextCursor() {
+        if (currentCursor != null) {
+            // Move past the node returned last, which may have been removed in the meantime
+            Node following = currentCursor.partition.nodes.higher(currentNode);
+            if (following != null) {
+                currentCursor.next = following;
+                activeCursors.add(currentCursor);
+            }
+            currentCursor = null;
+        }
+        while (true) {
+            Cursor head = activeCursors.peek();
+            if (head != null && unavailableResources.contains(head.partition.resource)) {
+                activeCursors.poll();
+                continue;
+            }
+            // Pull in the partitions that start before the current head, in order
+            Map.Entry<Node, Partition> candidate = lastPulledFirstNode == null ? partitionsByFirstNode.firstEntry() : partitionsByFirstNode.higherEntry(lastPulledFirstNode);
+            if (candidate == null || (head != null && order.compare(candidate.getKey(), head.next) > 0)) {
+                return head;
+            }
+            lastPulledFirstNode = candidate.getKey();
+            Partition partition = candidate.getValue();
+            if (partition.pass != pass && !unavailableResources.contains(partition.resource)) {
+                // The first node of a partition moves forward as nodes are removed, so a partition may be seen more than once per pass
+                partition.pass = pass;
+                activeCursors.add(new Cursor(partition, candidate.getKey()));
+            }
+        }
+    }
+
+    private static class Partition {
+        final Object resource;
+        final TreeSet<Node> nodes;
+        int pass = -1;
+
+        Partition(Object resource, Comparator<Node> order) {
+            this.resource = resource;
+            this.nodes = new TreeSet<>(order);
+        }
+    }
+
+    private static class Cursor {
+        final Partition partition;
+        Node next;
+
+        Cursor(Partition partition, Node next) {
+            this.partition = partition;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.execution.history.ExecutionDurationStore;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides the expected execution duration of nodes, based on the durations recorded for previous builds.
+ *
+ * <p>Only the durations of tasks that did work are recorded, so that a task that is up-to-date most of the time
+ * is still expected to take as long as its last real execution.</p>
+ *
+ * <p>Recorded durations are kept in memory and only written to the store by {@link #flush()}, as nodes complete while the
+ * execution state lock is held.</p>
+ */
+public class NodeExecutionDurations {
+    private final ExecutionDurationStore store;
+    private final Map<String, Duration> recordedDurations = new ConcurrentHashMap<>();
+
+    public NodeExecutionDurations(ExecutionDurationStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Returns the expected duration of the given node in milliseconds, or 0 when not known.
+     */
+    public long estimateMillis(Node node) {
+        if (node instanceof LocalTaskNode) {
+            return store.load(keyFor((LocalTaskNode) node)).map(Duration::toMillis).orElse(0L);
+        }
+        return 0;
+    }
+
+    public void record(Node node, long durationMillis) {
+        if (node instanceof LocalTaskNode && node.isSuccessful() && ((LocalTaskNode) node).getTask().getState().getDidWork()) {
+            recordedDurations.put(keyFor((LocalTaskNode) node), Duration.ofMillis(durationMillis));
+        }
+    }
+
+    /**
+     * Writes the durations recorded so far to the store.
+     */
+    public void flush() {
+        recordedDurations.forEach(store::store);
+        recordedDurations.clear();
+    }
+
+    private static String keyFor(LocalTaskNode node) {
+        return node.getTask().getIdentityPath().getPath();
+    }
+}
@@ -23,12 +23,17 @@
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultChecksumService implements ChecksumService {
     private final CachingFileHasher md5;
     private final CachingFileHasher sha1;
     private final CachingFileHasher sha256;
     private final CachingFileHasher sha512;
+    private final Set<HashFunction> requestedHashFunctions = ConcurrentHashMap.newKeySet();
 
     public DefaultChecksumService(
         StringInterner stringInterner,
@@ -57,22 +62,22 @@ private CachingFileHasher createCache(
 
     @Override
     public HashCode md5(File file) {
-        return doHash(file, md5);
+        return doHash(file, Hashing.md5(), md5);
     }
 
     @Override
     public HashCode sha1(File file) {
-        return doHash(file, sha1);
+        return doHash(file, Hashing.sha1(), sha1);
     }
 
     @Override
     public HashCode sha256(File file) {
-        return doHash(file, sha256);
+        return doHash(file, Hashing.sha256(), sha256);
     }
 
     @Override
     public HashCode sha512(File file) {
-        return doHash(file, sha512);
+        return doHash(file, Hashing.sha512(), sha512);
     }
 
     @Override
@@ -93,7 +98,30 @@ public HashCode hash(File src, String algorithm) {
         throw new UnsupportedOperationException("Cannot hash with algorith " + algorithm);
     }
 
-    private HashCode doHash(File file, CachingFileHasher hasher) {
+    @Override
+    public Collection<HashFunction> getRequestedHashFunctions() {
+        return Collections.unmodifiableSet(requestedHashFunctions);
+    }
+
+    @Override
+    public void recordChecksum(File file, HashFunction hashFunction, HashCode checksum) {
+        // Only keep checksums that are likely to be asked for, as recording writes to the cross-build cache
+        if (!requestedHashFunctions.contains(hashFunction)) {
+            return;
+        }
+        if (hashFunction == Hashing.md5()) {
+            md5.record(file, checksum);
+        } else if (hashFunction == Hashing.sha1()) {
+            sha1.record(file, checksum);
+        } else if (hashFunction == Hashing.sha256()) {
+            sha256.record(file, checksum);
+        } else if (hashFunction == Hashing.sha512()) {
+            sha512.record(file, checksum);
+        }
+    }
+
+    private HashCode doHash(File file, HashFunction hashFunction, CachingFileHasher hasher) {
+        requestedHashFunctions.add(hashFunction);
         return hasher.hash(file);
     }
 
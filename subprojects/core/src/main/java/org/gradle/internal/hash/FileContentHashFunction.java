@@ -0,0 +1,55 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import java.util.Locale;
+
+/**
+ * Selects the hash function used to hash file contents for the virtual file system and for file fingerprints.
+ *
+ * <p>The default is {@link Hashing#defaultFunction()}. A faster, non-cryptographic hash function can be selected
+ * by setting the {@value #PROPERTY} system property to {@code murmur3}. File content hashes end up in build cache keys,
+ * so a different hash function results in different cache keys. The persistent file hash caches are kept separately
+ * for each hash function, so hashes created by different functions are never mixed.</p>
+ */
+public class FileContentHashFunction {
+    public static final String PROPERTY = "org.gradle.internal.file-content-hash";
+
+    private FileContentHashFunction() {
+    }
+
+    public static HashFunction fromSystemProperties() {
+        String algorithm = System.getProperty(PROPERTY);
+        if (algorithm == null || algorithm.equalsIgnoreCase("md5")) {
+            return Hashing.defaultFunction();
+        }
+        if (algorithm.equalsIgnoreCase("murmur3")) {
+            return Hashing.murmur3();
+        }
+        throw new IllegalArgumentException(String.format("Unsupported file content hash function '%s' set by system property '%s'. Supported values are 'md5' and 'murmur3'.", algorithm, PROPERTY));
+    }
+
+    /**
+     * Returns the name to use for a persistent cache of file content hashes created by the given hash function.
+     */
+    public static String cacheName(String baseName, HashFunction hashFunction) {
+        if (hashFunction == Hashing.defaultFunction()) {
+            return baseName;
+        }
+        return baseName + "-" + hashFunction.getAlgorithm().toLowerCase(Locale.ROOT);
+    }
+}
@@ -22,6 +22,7 @@
 import org.gradle.internal.file.FileAccessTracker;
 import org.gradle.internal.file.impl.SingleDepthFileAccessTracker;
 import org.gradle.internal.hash.ChecksumService;
+import org.gradle.internal.hash.HashCode;
 
 import java.io.File;
 import java.util.Set;
@@ -56,6 +57,12 @@ public LocallyAvailableResource move(K key, File source) {
         return markAccessed(delegate.move(toPath(key, getChecksum(source)), source));
     }
 
+    @Override
+    public LocallyAvailableResource move(K key, File source, HashCode sha1) {
+        LocallyAvailableResource resource = delegate.move(toPath(key, sha1.toString()), source);
+        return markAccessed(new DefaultLocallyAvailableResource(resource.getFile(), sha1));
+    }
+
     @Override
     public Set<? extends LocallyAvailableResource> search(K key) {
         return delegate.search(toPath(key, "*"));
@@ -58,6 +58,8 @@
 import org.gradle.internal.Factory;
 import org.gradle.internal.agents.AgentInitializer;
 import org.gradle.internal.agents.AgentStatus;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.classloader.ClassLoaderFactory;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.concurrent.ExecutorFactory;
@@ -108,6 +110,7 @@
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.health.memory.OsMemoryInfo;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -167,6 +170,11 @@ GradleBuildEnvironment createGradleBuildEnvironment() {
         return environment;
     }
 
+    InternalOptions createInternalOptions() {
+        // Services outliving a build only see the system properties of the daemon JVM, the build tree services provide the options of each build
+        return new DefaultInternalOptions(Collections.emptyMap());
+    }
+
     CachingServiceLocator createPluginsServiceLocator(ClassLoaderRegistry registry) {
         return CachingServiceLocator.of(
             new DefaultServiceLocator(registry.getPluginsClassLoader())
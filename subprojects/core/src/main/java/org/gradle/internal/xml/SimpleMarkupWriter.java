@@ -296,6 +296,15 @@ protected void writeRaw(String message) throws IOException {
     private void writeXmlEncoded(char[] message, int offset, int count) throws IOException {
         int end = offset + count;
         for (int i = offset; i < end;) {
+            int plainEnd = i;
+            while (plainEnd < end && isPlainCharacter(message[plainEnd])) {
+                plainEnd++;
+            }
+            if (plainEnd > i) {
+                output.write(message, i, plainEnd - i);
+                i = plainEnd;
+                continue;
+            }
             int codePoint = Character.codePointAt(message, i);
             i += Character.charCount(codePoint);
             writeXmlEncoded(codePoint);
@@ -328,12 +337,30 @@ private void writeXmlEncoded(CharSequence message) throws IOException {
         assert message != null;
         int len = message.length();
         for (int i = 0; i < len;) {
+            int plainEnd = i;
+            while (plainEnd < len && isPlainCharacter(message.charAt(plainEnd))) {
+                plainEnd++;
+            }
+            if (plainEnd > i) {
+                output.append(message, i, plainEnd);
+                i = plainEnd;
+                continue;
+            }
             int codePoint = Character.codePointAt(message, i);
             i += Character.charCount(codePoint);
             writeXmlEncoded(codePoint);
         }
     }
 
+    /**
+     * Returns true for the characters that are written as they are, so that runs of them can be written to the output at once rather than one character at a time.
+     * Surrogates are never plain, as they are not legal characters on their own.
+     */
+    private static boolean isPlainCharacter(char ch) {
+        return ch != '<' && ch != '>' && ch != '&' && ch != '"'
+            && XmlValidation.isLegalCharacter(ch) && !XmlValidation.isRestrictedCharacter(ch);
+    }
+
     private void writeSafeCharacters(CharSequence message) throws IOException {
         assert message != null;
         int len = message.length();
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.JavaVersion;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.util.GradleVersion;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the JVM arguments which let JVMs share the class data they load through a Class Data Sharing archive.
+ *
+ * <p>Each Java installation and class path, including the size and modification time of each jar, gets its own dynamic archive. The first JVM started for an archive that does not exist yet claims its creation,
+ * and dumps its classes at exit into a temporary file of its own. That file is moved into place once it is complete, and JVMs started in the meantime
+ * run without an archive. The archives are kept per Gradle version in the Gradle user home directory, and the least recently used ones are deleted
+ * when there are too many. This requires Java 19 or later, and a class path made of jar files only, as the JVM does not archive classes loaded from directories.</p>
+ */
+public class ClassDataSharing {
+    /**
+     * Set this system property to {@code false} to start JVMs without a Class Data Sharing archive.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.internal.jvm.cds";
+
+    private static final int MAX_ARCHIVES = 16;
+    // The JVM writes its archive within seconds when it exits, so a temporary archive that has not changed for longer is complete
+    private static final long DUMP_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    // Lets another JVM create the archive when the claiming JVM was killed before dumping its classes
+    private static final long CLAIM_TIMEOUT_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final File archivesDir;
+    private final boolean enabled;
+
+    public ClassDataSharing(File archivesDir) {
+        this(archivesDir, !"false".equals(System.getProperty(ENABLED_PROPERTY)));
+    }
+
+    public ClassDataSharing(File archivesDir, boolean enabled) {
+        this.archivesDir = archivesDir;
+        this.enabled = enabled;
+    }
+
+    public static ClassDataSharing forGradleUserHome(File gradleUserHomeDir) {
+        return new ClassDataSharing(new File(new File(new File(gradleUserHomeDir, "caches"), GradleVersion.current().getVersion()), "cds"));
+    }
+
+    /**
+     * Returns the arguments to add for a JVM of the given version, or an empty list when the JVM cannot use an archive.
+     *
+     * @param jvmArgs the arguments the JVM is started with, which may disable or configure class data sharing on their own
+     */
+    public List<String> getJvmArgs(JavaVersion javaVersion, String javaExecutable, Collection<File> classpath, List<String> jvmArgs) {
+        if (!enabled || !javaVersion.isCompatibleWith(JavaVersion.VERSION_19) || classpath.isEmpty()) {
+            return Collections.emptyList();
+        }
+        for (String jvmArg : jvmArgs) {
+            if (jvmArg.startsWith("-Xshare") || jvmArg.contains("SharedArchiveFile") || jvmArg.contains("ArchiveClassesAtExit")) {
+                return Collections.emptyList();
+            }
+        }
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(javaExecutable);
+        // A Java installation updated in place no longer matches its archive
+        hasher.putLong(new File(javaExecutable).lastModified());
+        for (File file : classpath) {
+            if (!file.isFile() || !file.getName().endsWith(".jar")) {
+                return Collections.emptyList();
+            }
+            hasher.putString(file.getAbsolutePath());
+            // The JVM rejects the archive once a jar is rebuilt in place, so a new archive is created for it
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+        //noinspection ResultOfMethodCallIgnored
+        archivesDir.mkdirs();
+        if (!archivesDir.isDirectory()) {
+            return Collections.emptyList();
+        }
+        try {
+            return getArchiveArgs(hasher.hash().toCompactString());
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    private List<String> getArchiveArgs(String key) throws IOException {
+        File archive = new File(archivesDir, key + ".jsa");
+        File claim = new File(archivesDir, key + ".lock");
+        if (archive.isFile() || moveDumpedArchive(key, archive)) {
+            Files.deleteIfExists(claim.toPath());
+            // Keeps the archives used recently when deleting archives
+            //noinspection ResultOfMethodCallIgnored
+            archive.setLastModified(System.currentTimeMillis());
+            return archiveArgs("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        }
+        if (claim.isFile() && System.currentTimeMillis() - claim.lastModified() > CLAIM_TIMEOUT_MILLIS) {
+            Files.deleteIfExists(claim.toPath());
+        }
+        try {
+            Files.createFile(claim.toPath());
+        } catch (FileAlreadyExistsException e) {
+            // Another JVM creates the archive
+            return Collections.emptyList();
+        }
+        deleteLeastRecentlyUsedArchives();
+        File dump = new File(archivesDir, key + "." + UUID.randomUUID() + ".tmp");
+        return archiveArgs("-XX:ArchiveClassesAtExit=" + dump.getAbsolutePath());
+    }
+
+    private boolean moveDumpedArchive(String key, File archive) throws IOException {
+        File[] dumps = archivesDir.listFiles((dir, name) -> name.startsWith(key + ".") && name.endsWith(".tmp"));
+        if (dumps == null) {
+            return false;
+        }
+        for (File dump : dumps) {
+            if (System.currentTimeMillis() - dump.lastModified() < DUMP_TIMEOUT_MILLIS) {
+                continue;
+            }
+            try {
+                if (archive.isFile() || dump.length() == 0) {
+                    Files.delete(dump.toPath());
+                } else {
+                    Files.move(dump.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (NoSuchFileException e) {
+                // Moved or deleted by another process
+            }
+        }
+        return archive.isFile();
+    }
+
+    private void deleteLeastRecentlyUsedArchives() {
+        File[] archives = archivesDir.listFiles((dir, name) -> name.endsWith(".jsa"));
+        if (archives == null || archives.length < MAX_ARCHIVES) {
+            return;
+        }
+        Arrays.sort(archives, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i <= archives.length - MAX_ARCHIVES; i++) {
+            // Fails for archives in use on Windows, which are deleted later
+            //noinspection ResultOfMethodCallIgnored
+            archives[i].delete();
+        }
+    }
+
+    private static List<String> archiveArgs(String archiveArg) {
+        // Archive mismatches are expected, e.g. after an upgrade of the Java installation, and must not show up in the output of the JVM
+        return ImmutableList.of(archiveArg, "-Xlog:cds=off", "-Xlog:cds+dynamic=off");
+    }
+}
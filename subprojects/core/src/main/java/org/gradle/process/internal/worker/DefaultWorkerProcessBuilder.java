@@ -17,6 +17,7 @@
 package org.gradle.process.internal.worker;
 
 import org.gradle.api.Action;
+import org.gradle.api.JavaVersion;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.internal.jvm.Jvm;
@@ -27,6 +28,7 @@
 import org.gradle.internal.remote.MessagingServer;
 import org.gradle.internal.remote.ObjectConnection;
 import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ClassDataSharing;
 import org.gradle.process.internal.ExecHandle;
 import org.gradle.process.internal.JavaExecHandleBuilder;
 import org.gradle.process.internal.JavaExecHandleFactory;
@@ -62,6 +64,7 @@ public class DefaultWorkerProcessBuilder implements WorkerProcessBuilder {
 
     private final MemoryManager memoryManager;
     private final JvmVersionDetector jvmVersionDetector;
+    private final ClassDataSharing classDataSharing;
     private Action<? super WorkerProcessContext> action;
     private LogLevel logLevel = LogLevel.LIFECYCLE;
     private String baseName = "Gradle Worker";
@@ -77,7 +80,8 @@ public class DefaultWorkerProcessBuilder implements WorkerProcessBuilder {
         ApplicationClassesInSystemClassLoaderWorkerImplementationFactory workerImplementationFactory,
         OutputEventListener outputEventListener,
         MemoryManager memoryManager,
-        JvmVersionDetector jvmVersionDetector
+        JvmVersionDetector jvmVersionDetector,
+        ClassDataSharing classDataSharing
     ) {
         this.javaCommand = execHandleFactory.newJavaExec();
         this.javaCommand.setExecutable(Jvm.current().getJavaExecutable());
@@ -87,6 +91,7 @@ public class DefaultWorkerProcessBuilder implements WorkerProcessBuilder {
         this.outputEventListener = outputEventListener;
         this.memoryManager = memoryManager;
         this.jvmVersionDetector = jvmVersionDetector;
+        this.classDataSharing = classDataSharing;
     }
 
     public int getConnectTimeoutSeconds() {
@@ -230,8 +235,10 @@ public WorkerProcess build() {
         JavaExecHandleBuilder javaCommand = getJavaCommand();
         javaCommand.setDisplayName(displayName);
 
-        boolean java9Compatible = jvmVersionDetector.getJavaVersion(javaCommand.getExecutable()).isJava9Compatible();
-        workerImplementationFactory.prepareJavaCommand(id, displayName, this, implementationClassPath, implementationModulePath, localAddress, javaCommand, shouldPublishJvmMemoryInfo, java9Compatible);
+        JavaVersion javaVersion = jvmVersionDetector.getJavaVersion(javaCommand.getExecutable());
+        List<String> classDataSharingArgs = classDataSharing.getJvmArgs(javaVersion, javaCommand.getExecutable(), applicationClasspath, javaCommand.getAllJvmArgs());
+        workerImplementationFactory.prepareJavaCommand(id, displayName, this, implementationClassPath, implementationModulePath, localAddress, javaCommand, shouldPublishJvmMemoryInfo, javaVersion.isJava9Compatible());
+        javaCommand.jvmArgs(classDataSharingArgs);
 
         javaCommand.args("'" + displayName + "'");
         if (javaCommand.getMaxHeapSize() == null) {
@@ -25,6 +25,7 @@
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
 import org.gradle.internal.logging.events.OutputEventListener;
 import org.gradle.internal.remote.MessagingServer;
+import org.gradle.process.internal.ClassDataSharing;
 import org.gradle.process.internal.JavaExecHandleFactory;
 import org.gradle.process.internal.health.memory.MemoryManager;
 import org.gradle.process.internal.worker.child.ApplicationClassesInSystemClassLoaderWorkerImplementationFactory;
@@ -41,6 +42,7 @@ public class DefaultWorkerProcessFactory implements WorkerProcessFactory {
     private final OutputEventListener outputEventListener;
     private final ApplicationClassesInSystemClassLoaderWorkerImplementationFactory workerImplementationFactory;
     private final MemoryManager memoryManager;
+    private final ClassDataSharing classDataSharing;
     private int connectTimeoutSeconds = 120;
 
     public DefaultWorkerProcessFactory(
@@ -63,6 +65,7 @@ public DefaultWorkerProcessFactory(
         this.outputEventListener = outputEventListener;
         this.workerImplementationFactory = new ApplicationClassesInSystemClassLoaderWorkerImplementationFactory(classPathRegistry, temporaryFileProvider, gradleUserHomeDir);
         this.memoryManager = memoryManager;
+        this.classDataSharing = ClassDataSharing.forGradleUserHome(gradleUserHomeDir);
     }
 
     public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
@@ -88,7 +91,7 @@ public <IN, OUT> MultiRequestWorkerProcessBuilder<IN, OUT> multiRequestWorker(Cl
     }
 
     private DefaultWorkerProcessBuilder newWorkerProcessBuilder() {
-        DefaultWorkerProcessBuilder builder = new DefaultWorkerProcessBuilder(execHandleFactory, server, idGenerator, workerImplementationFactory, outputEventListener, memoryManager, jvmVersionDetector);
+        DefaultWorkerProcessBuilder builder = new DefaultWorkerProcessBuilder(execHandleFactory, server, idGenerator, workerImplementationFactory, outputEventListener, memoryManager, jvmVersionDetector, classDataSharing);
         builder.setLogLevel(loggingManager.getLevel());
         builder.setConnectTimeoutSeconds(connectTimeoutSeconds);
         return builder;
@@ -150,6 +150,33 @@ class CachingFileHasherTest extends Specification {
         0 * _
     }
 
+    def "records hash computed elsewhere"() {
+        def stat = fileSystem.stat(file)
+
+        when:
+        hasher.record(file, hash)
+
+        then:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
+            assert fileInfo.hash == hash
+            assert fileInfo.length == stat.length
+            assert fileInfo.timestamp == stat.lastModified
+        }
+        0 * _
+    }
+
+    def "does not record hash when timestamp cannot be used to detect change"() {
+        def stat = fileSystem.stat(file)
+
+        when:
+        hasher.record(file, hash)
+
+        then:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> false
+        0 * _
+    }
+
     def "hashes given file length and last modified"() {
         long lastModified = 123l
         long length = 321l
@@ -33,6 +33,7 @@ import org.gradle.api.tasks.OutputFile
 import org.gradle.api.tasks.OutputFiles
 import org.gradle.api.tasks.TaskAction
 import org.gradle.composite.internal.BuildTreeWorkGraphController
+import org.gradle.internal.execution.history.ExecutionDurationStore
 import org.gradle.internal.file.Stat
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.test.fixtures.file.TestFile
@@ -43,6 +44,7 @@ import org.gradle.util.internal.ToBeImplemented
 import spock.lang.Issue
 
 import javax.annotation.Nullable
+import java.time.Duration
 import java.util.function.Consumer
 
 import static org.gradle.internal.snapshot.CaseSensitivity.CASE_SENSITIVE
@@ -1051,6 +1053,29 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
         secondTask == b
     }
 
+    def "starts task with longest remaining critical path first when durations are known"() {
+        given:
+        def a = task("a", type: Async)
+        def b = task("b", type: Async)
+        def c = task("c", type: Async, dependsOn: [b])
+        def durations = Stub(ExecutionDurationStore) {
+            load(":a") >> Optional.of(Duration.ofSeconds(10))
+            load(":b") >> Optional.of(Duration.ofSeconds(5))
+            load(":c") >> Optional.of(Duration.ofSeconds(20))
+            load(_) >> Optional.empty()
+        }
+
+        when:
+        executionPlan.setNodeExecutionDurations(new NodeExecutionDurations(durations))
+        addToGraphAndPopulate(a, c)
+
+        def firstTask = selectNextTask()
+        def secondTask = selectNextTask()
+        then:
+        firstTask == b
+        secondTask == a
+    }
+
     def "task is not available for execution until all of its dependencies that are executed in parallel complete"() {
         given:
         Task a = task("a", type: Async)
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService
+import org.gradle.internal.resources.ResourceLock
+import org.gradle.internal.resources.SharedResourceLeaseRegistry
+import spock.lang.Specification
+
+class ExecutionQueueTest extends Specification {
+    def order = new ArrayList<Node>()
+    def queue = new ExecutionQueue({ Node a, Node b -> order.indexOf(a) <=> order.indexOf(b) } as Comparator<Node>)
+    def projectA = Stub(ResourceLock)
+    def projectB = Stub(ResourceLock)
+    def sharedResources = new SharedResourceLeaseRegistry(new DefaultResourceLockCoordinationService())
+
+    def setup() {
+        sharedResources.registerSharedResource("service", 1)
+    }
+
+    def "iterates nodes of all partitions in order"() {
+        given:
+        def n1 = node(projectA)
+        def n2 = node(null)
+        def n3 = node(projectB)
+        def n4 = node(projectA)
+        def n5 = node(null, sharedResources.getResourceLock("service"))
+        [n5, n3, n1, n4, n2].each { queue.insert(it) }
+
+        expect:
+        visit() == [n1, n2, n3, n4, n5]
+        queue.nodes == [n1, n2, n3, n4, n5]
+        queue.size() == 5
+    }
+
+    def "skips remaining nodes of partition whose resource is unavailable"() {
+        given:
+        def n1 = node(projectA)
+        def n2 = node(projectB)
+        def n3 = node(projectA)
+        def n4 = node(null, sharedResources.getResourceLock("service"))
+        def n5 = node(projectA)
+        def n6 = node(null, sharedResources.getResourceLock("service"))
+        def n7 = node(null)
+        [n1, n2, n3, n4, n5, n6, n7].each { queue.insert(it) }
+
+        when:
+        def visited = visit { node ->
+            if (node == n1) {
+                queue.resourceUnavailable(projectA)
+            } else if (node == n4) {
+                // Each node holds a lease of its own for the same shared resource
+                queue.resourceUnavailable(n4.resourcesToLock[0])
+            }
+        }
+
+        then:
+        visited == [n1, n2, n4, n7]
+
+        and:
+        visit() == [n1, n2, n3, n4, n5, n6, n7]
+    }
+
+    def "can remove current node and continue iterating"() {
+        given:
+        def n1 = node(projectA)
+        def n2 = node(projectB)
+        def n3 = node(projectA)
+        def n4 = node(projectB)
+        [n1, n2, n3, n4].each { queue.insert(it) }
+
+        when:
+        def visited = visit { node ->
+            if (node == n1 || node == n2) {
+                queue.remove()
+            }
+        }
+
+        then:
+        visited == [n1, n2, n3, n4]
+        queue.nodes == [n3, n4]
+        !queue.contains(n1)
+        queue.contains(n3)
+    }
+
+    def "can remove node and restart"() {
+        given:
+        def n1 = node(projectA)
+        def n2 = node(projectA)
+        def n3 = node(null)
+        [n1, n2, n3].each { queue.insert(it) }
+
+        when:
+        queue.restart()
+        queue.next()
+        queue.removeAndRestart(n1)
+
+        then:
+        queue.next() == n2
+
+        when:
+        queue.removeAndRestart(n2)
+        queue.removeAndRestart(n3)
+
+        then:
+        queue.empty
+        !queue.hasNext()
+    }
+
+    def "inserting a node requires the iteration to restart"() {
+        given:
+        def n1 = node(projectA)
+        def n2 = node(projectA)
+        queue.insert(n2)
+
+        when:
+        queue.restart()
+        queue.next()
+        queue.insert(n1)
+        queue.next()
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        def visited = visit()
+
+        then:
+        visited == [n1, n2]
+    }
+
+    private List<Node> visit(Closure action = {}) {
+        def visited = []
+        queue.restart()
+        while (queue.hasNext()) {
+            def node = queue.next()
+            visited << node
+            action(node)
+        }
+        return visited
+    }
+
+    private Node node(ResourceLock projectLock, ResourceLock... resources) {
+        def node = Stub(Node) {
+            getProjectToLock() >> projectLock
+            getResourcesToLock() >> (resources as List)
+        }
+        order << node
+        return node
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.tasks.TaskStateInternal
+import org.gradle.internal.execution.history.ExecutionDurationStore
+import org.gradle.util.Path
+import spock.lang.Specification
+
+import java.time.Duration
+
+class NodeExecutionDurationsTest extends Specification {
+    def store = Mock(ExecutionDurationStore)
+    def durations = new NodeExecutionDurations(store)
+
+    def "writes recorded durations to the store only when flushed"() {
+        given:
+        def a = taskNode(":a", true)
+        def b = taskNode(":b", false)
+
+        when:
+        durations.record(a, 100)
+        durations.record(b, 200)
+
+        then:
+        0 * store._
+
+        when:
+        durations.flush()
+
+        then:
+        1 * store.store(":a", Duration.ofMillis(100))
+        0 * store._
+
+        when:
+        durations.flush()
+
+        then:
+        0 * store._
+    }
+
+    private LocalTaskNode taskNode(String path, boolean didWork) {
+        def state = Stub(TaskStateInternal) {
+            getDidWork() >> didWork
+        }
+        def task = Stub(TaskInternal) {
+            getState() >> state
+            getIdentityPath() >> Path.path(path)
+        }
+        return Stub(LocalTaskNode) {
+            isSuccessful() >> true
+            getTask() >> task
+        }
+    }
+}
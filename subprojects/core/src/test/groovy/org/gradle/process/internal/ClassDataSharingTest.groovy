@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.api.JavaVersion
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ClassDataSharingTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def archivesDir = tmpDir.file("cds")
+    def classDataSharing = new ClassDataSharing(archivesDir, true)
+    def jar = tmpDir.createFile("lib/a.jar")
+
+    def "lets a single jvm create the archive of a java installation and class path"() {
+        when:
+        def args = classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/jdk/bin/java", [jar], [])
+        def concurrentArgs = classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/jdk/bin/java", [jar], ["-Xmx1g"])
+        def otherJvmArgs = classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/other-jdk/bin/java", [jar], [])
+
+        then:
+        def dump = dumpFileOf(args)
+        dump.parentFile == archivesDir
+        dump.name.endsWith(".tmp")
+        concurrentArgs.empty
+        dumpFileOf(otherJvmArgs) != dump
+    }
+
+    def "uses the archive once the jvm creating it has dumped its classes"() {
+        given:
+        def dump = dumpFileOf(classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/jdk/bin/java", [jar], []))
+
+        when:
+        dump.text = "archive"
+
+        then:
+        classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/jdk/bin/java", [jar], []).empty
+
+        when:
+        dump.lastModified = System.currentTimeMillis() - 120_000
+        def args = classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/jdk/bin/java", [jar], [])
+
+        then:
+        def archive = new File(args.find { it.startsWith("-XX:SharedArchiveFile=") } - "-XX:SharedArchiveFile=")
+        archive.text == "archive"
+        !dump.exists()
+        archivesDir.list().toList() == [archive.name]
+        classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/jdk/bin/java", [jar], ["-Xmx1g"]) == args
+    }
+
+    def "creates a new archive once a jar of the class path is rebuilt"() {
+        given:
+        def dump = dumpFileOf(classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/jdk/bin/java", [jar], []))
+        dump.text = "archive"
+        dump.lastModified = System.currentTimeMillis() - 120_000
+        classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/jdk/bin/java", [jar], [])
+
+        when:
+        jar.text = "rebuilt"
+        def args = classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/jdk/bin/java", [jar], [])
+
+        then:
+        dumpFileOf(args).parentFile == archivesDir
+    }
+
+    def "deletes the least recently used archives"() {
+        given:
+        archivesDir.mkdirs()
+        def archives = (0..<16).collect { index ->
+            def archive = new File(archivesDir, "${index}.jsa")
+            archive.text = "archive"
+            archive.lastModified = System.currentTimeMillis() - (16 - index) * 1000
+            archive
+        }
+
+        when:
+        classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "/jdk/bin/java", [jar], [])
+
+        then:
+        !archives[0].exists()
+        archives[1..15].every { it.exists() }
+    }
+
+    def "does not use an archive when the jvm, the class path or the jvm arguments do not allow it"() {
+        expect:
+        classDataSharing.getJvmArgs(JavaVersion.VERSION_17, "java", [jar], []).empty
+        classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "java", [], []).empty
+        classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "java", [jar, tmpDir.createDir("classes")], []).empty
+        classDataSharing.getJvmArgs(JavaVersion.VERSION_21, "java", [jar], ["-Xshare:off"]).empty
+        new ClassDataSharing(archivesDir, false).getJvmArgs(JavaVersion.VERSION_21, "java", [jar], []).empty
+    }
+
+    private static File dumpFileOf(List<String> args) {
+        def arg = args.find { it.startsWith("-XX:ArchiveClassesAtExit=") }
+        assert arg != null
+        return new File(arg - "-XX:ArchiveClassesAtExit=")
+    }
+}
@@ -22,6 +22,7 @@ import org.gradle.internal.logging.events.OutputEventListener
 import org.gradle.internal.remote.ConnectionAcceptor
 import org.gradle.internal.remote.MessagingServer
 import org.gradle.internal.remote.ObjectConnection
+import org.gradle.process.internal.ClassDataSharing
 import org.gradle.process.internal.ExecHandle
 import org.gradle.process.internal.JavaExecHandleBuilder
 import org.gradle.process.internal.JavaExecHandleFactory
@@ -60,7 +61,8 @@ class DefaultWorkerProcessBuilderSpec extends Specification {
         applicationClassesInSystemClassLoaderWorkerImplementationFactory,
         outputEventListener,
         memoryManager,
-        versionDetector)
+        versionDetector,
+        Mock(ClassDataSharing))
 
 
     def "validate entries in classpath"() {